@@ -0,0 +1,257 @@
+package jobshop;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/** Runs each solver with several seeds on each instance and compares the solvers statistically.
+ *
+ * Each run records its makespan, its runtime and its time to target : the time at which the solver reported a
+ * solution within a given percentage of the best known result (of the lower bound for unknown instances). Solvers
+ * that do not report their improvements only reach the target when they return. Solvers are compared with a
+ * baseline by a Wilcoxon signed-rank test on the gaps of the runs with the same instance and seed.
+ */
+public class Benchmark {
+
+    /** One run of a solver on an instance. */
+    public static class Run {
+        public final String solver;
+        public final String instance;
+        public final long seed;
+        public final int makespan;
+        public final long runtime;
+        /** milliseconds until the target was reached, -1 if it was not */
+        public final long timeToTarget;
+        /** gap to the reference makespan of the instance, in percent */
+        public final double gap;
+
+        Run(String solver, String instance, long seed, int makespan, long runtime, long timeToTarget, double gap) {
+            this.solver = solver;
+            this.instance = instance;
+            this.seed = seed;
+            this.makespan = makespan;
+            this.runtime = runtime;
+            this.timeToTarget = timeToTarget;
+            this.gap = gap;
+        }
+    }
+
+    private final Map<String, LongFunction<Solver>> solvers;
+    private final List<String> solverNames;
+    private final List<String> instances;
+    private final long timeoutMs;
+    private final int seeds;
+    private final double targetPercent;
+
+    /** Runs of the last call to run(), in the order of the solvers, then instances, then seeds. */
+    public final List<Run> runs = new ArrayList<>();
+
+    public Benchmark(Map<String, LongFunction<Solver>> solvers, List<String> solverNames, List<String> instances,
+                     long timeoutMs, int seeds, double targetPercent) {
+        if(seeds < 1)
+            throw new IllegalArgumentException("At least one seed is needed");
+        this.solvers = solvers;
+        this.solverNames = solverNames;
+        this.instances = instances;
+        this.timeoutMs = timeoutMs;
+        this.seeds = seeds;
+        this.targetPercent = targetPercent;
+    }
+
+    /** Makespan to which gaps are computed : the best known result, or the lower bound for unknown instances. */
+    static int reference(String instanceName, Instance instance) {
+        return BestKnownResult.isKnown(instanceName) ? BestKnownResult.of(instanceName) : LowerBound.of(instance);
+    }
+
+    /** Runs all (solver, instance, seed) triples, numThreads at a time. */
+    public void run(int numThreads) throws IOException, InterruptedException, ExecutionException {
+        List<Instance> loaded = new ArrayList<>();
+        for(String instanceName : instances)
+            loaded.add(Instance.fromFile(Main.instancePath(instanceName)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Run>> futures = new ArrayList<>();
+            for(String solverName : solverNames)
+                for(int i = 0 ; i < instances.size() ; i++)
+                    for(long seed = 0 ; seed < seeds ; seed++) {
+                        String instanceName = instances.get(i);
+                        Instance instance = loaded.get(i);
+                        long s = seed;
+                        futures.add(pool.submit(() -> run(solverName, instanceName, instance, s)));
+                    }
+            runs.clear();
+            for(Future<Run> future : futures)
+                runs.add(future.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Run run(String solverName, String instanceName, Instance instance, long seed) {
+        int reference = reference(instanceName, instance);
+        int target = (int) Math.floor(reference * (1 + targetPercent / 100));
+        Solver solver = solvers.get(solverName).apply(seed);
+        long start = System.currentTimeMillis();
+        long[] reached = {-1};
+        Result result = solver.solve(instance, start + timeoutMs, schedule -> {
+            if(reached[0] < 0 && schedule.makespan() <= target)
+                reached[0] = System.currentTimeMillis() - start;
+        });
+        long runtime = System.currentTimeMillis() - start;
+        if(!result.schedule.isValid())
+            throw new RuntimeException("Solver " + solverName + " returned an invalid schedule on " + instanceName);
+        int makespan = result.schedule.makespan();
+        // the lower bound of an instance with null durations is 0, as its optimum
+        double gap = reference == 0 ? 0 : 100.0 * (makespan - reference) / reference;
+        return new Run(solverName, instanceName, seed, makespan, runtime, reached[0], gap);
+    }
+
+    /** Runs of a solver, on one instance or on all of them if instanceName is null, ordered by instance and seed. */
+    public List<Run> runsOf(String solverName, String instanceName) {
+        List<Run> selected = new ArrayList<>();
+        for(Run run : runs)
+            if(run.solver.equals(solverName) && (instanceName == null || run.instance.equals(instanceName)))
+                selected.add(run);
+        return selected;
+    }
+
+    /** Two-sided p-value of the Wilcoxon signed-rank test between the gaps of the two solvers, paired by instance
+     * and seed. */
+    public double pValue(String solverName, String baseline) {
+        List<Run> a = runsOf(solverName, null);
+        List<Run> b = runsOf(baseline, null);
+        double[] gapsA = new double[a.size()];
+        double[] gapsB = new double[b.size()];
+        for(int i = 0 ; i < a.size() ; i++) {
+            gapsA[i] = a.get(i).gap;
+            gapsB[i] = b.get(i).gap;
+        }
+        return Statistics.wilcoxon(gapsA, gapsB);
+    }
+
+    private static double[] makespans(List<Run> runs) {
+        return runs.stream().mapToDouble(r -> r.makespan).toArray();
+    }
+
+    private static double[] runtimes(List<Run> runs) {
+        return runs.stream().mapToDouble(r -> r.runtime).toArray();
+    }
+
+    private static double[] timesToTarget(List<Run> runs) {
+        return runs.stream().filter(r -> r.timeToTarget >= 0).mapToDouble(r -> r.timeToTarget).toArray();
+    }
+
+    private static double[] gaps(List<Run> runs) {
+        return runs.stream().mapToDouble(r -> r.gap).toArray();
+    }
+
+    /** Prints the statistics of each solver on each instance, then the comparison of each solver with the baseline. */
+    public void report(PrintStream output, String baseline) {
+        output.printf("%-8s %-12s | %-31s | %-31s | %-37s%n", "", "", "makespan", "runtime (ms)",
+                "time to target +" + targetPercent + "% (ms)");
+        String columns = String.format("%7s %7s %7s %7s", "mean", "median", "best", "std");
+        output.printf("%-8s %-12s | %s | %s | %5s %s%n", "instance", "solver", columns, columns, "hits", columns);
+        for(String instanceName : instances) {
+            for(String solverName : solverNames) {
+                List<Run> selected = runsOf(solverName, instanceName);
+                double[] ttt = timesToTarget(selected);
+                output.printf("%-8s %-12s | %s | %s | %2d/%-2d %s%n", instanceName, solverName,
+                        columns(makespans(selected)), columns(runtimes(selected)),
+                        ttt.length, selected.size(), ttt.length > 0 ? columns(ttt) : String.format("%7s %7s %7s %7s", "-", "-", "-", "-"));
+            }
+        }
+
+        output.println();
+        output.printf("%-12s %8s %8s   paired with %s over %d runs%n", "solver", "mean gap", "p-value", baseline,
+                runsOf(baseline, null).size());
+        for(String solverName : solverNames) {
+            double meanGap = Statistics.mean(gaps(runsOf(solverName, null)));
+            if(solverName.equals(baseline)) {
+                output.printf("%-12s %7.2f%% %8s   (baseline)%n", solverName, meanGap, "-");
+                continue;
+            }
+            double p = pValue(solverName, baseline);
+            double difference = meanGap - Statistics.mean(gaps(runsOf(baseline, null)));
+            String verdict = p >= 0.05 ? "no significant difference" : (difference < 0 ? "better" : "worse");
+            output.printf("%-12s %7.2f%% %8.4f   %s%n", solverName, meanGap, p, verdict);
+        }
+    }
+
+    private static String columns(double[] values) {
+        return String.format("%7.1f %7.1f %7.1f %7.1f", Statistics.mean(values), Statistics.median(values), min(values), Statistics.std(values));
+    }
+
+    private static double min(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        for(double v : values)
+            min = Math.min(min, v);
+        return min;
+    }
+
+    /** Writes the parameters, all runs, the statistics and the comparisons with the baseline as JSON. */
+    public void writeJson(Path path, String baseline) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"timeout_ms\": ").append(timeoutMs).append(",\n");
+        json.append("  \"seeds\": ").append(seeds).append(",\n");
+        json.append("  \"target_percent\": ").append(targetPercent).append(",\n");
+        json.append("  \"baseline\": ").append(quote(baseline)).append(",\n");
+
+        json.append("  \"runs\": [\n");
+        for(int i = 0 ; i < runs.size() ; i++) {
+            Run run = runs.get(i);
+            json.append(String.format(Locale.ROOT, "    {\"solver\": %s, \"instance\": %s, \"seed\": %d, \"makespan\": %d, \"gap\": %.4f, \"runtime_ms\": %d, \"time_to_target_ms\": %s}",
+                    quote(run.solver), quote(run.instance), run.seed, run.makespan, run.gap, run.runtime,
+                    run.timeToTarget < 0 ? "null" : String.valueOf(run.timeToTarget)));
+            json.append(i + 1 < runs.size() ? ",\n" : "\n");
+        }
+        json.append("  ],\n");
+
+        json.append("  \"statistics\": [\n");
+        List<String> entries = new ArrayList<>();
+        for(String instanceName : instances) {
+            for(String solverName : solverNames) {
+                List<Run> selected = runsOf(solverName, instanceName);
+                double[] ttt = timesToTarget(selected);
+                entries.add(String.format(Locale.ROOT, "    {\"solver\": %s, \"instance\": %s, \"makespan\": %s, \"runtime_ms\": %s, \"time_to_target_ms\": %s, \"hits\": %d}",
+                        quote(solverName), quote(instanceName), summary(makespans(selected)), summary(runtimes(selected)),
+                        ttt.length > 0 ? summary(ttt) : "null", ttt.length));
+            }
+        }
+        json.append(String.join(",\n", entries)).append("\n  ],\n");
+
+        json.append("  \"comparisons\": [\n");
+        entries.clear();
+        for(String solverName : solverNames) {
+            if(solverName.equals(baseline))
+                continue;
+            entries.add(String.format(Locale.ROOT, "    {\"solver\": %s, \"mean_gap\": %.4f, \"baseline_mean_gap\": %.4f, \"p_value\": %.6f}",
+                    quote(solverName), Statistics.mean(gaps(runsOf(solverName, null))),
+                    Statistics.mean(gaps(runsOf(baseline, null))), pValue(solverName, baseline)));
+        }
+        json.append(String.join(",\n", entries)).append(entries.isEmpty() ? "" : "\n").append("  ]\n");
+        json.append("}\n");
+        Files.write(path, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String summary(double[] values) {
+        return String.format(Locale.ROOT, "{\"mean\": %.2f, \"median\": %.2f, \"best\": %.2f, \"std\": %.2f}",
+                Statistics.mean(values), Statistics.median(values), min(values), Statistics.std(values));
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
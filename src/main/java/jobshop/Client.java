@@ -0,0 +1,152 @@
+package jobshop;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/** Client of `Server`, sending one request at a time on a connection and waiting for its result. */
+public class Client implements Closeable {
+
+    /** Final answer of the server to a request. */
+    public static class Response {
+        public final long id;
+        /** milliseconds between the reception of the request and the result, measured by the server */
+        public final long elapsed;
+        public final int makespan;
+        public final Result.ExitCause cause;
+        /** start time of each operation, by operation number */
+        public final int[] startTimes;
+
+        Response(long id, long elapsed, int makespan, Result.ExitCause cause, int[] startTimes) {
+            this.id = id;
+            this.elapsed = elapsed;
+            this.makespan = makespan;
+            this.cause = cause;
+            this.startTimes = startTimes;
+        }
+    }
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    public Client(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /** Solves an instance file known to the server by its name or path. */
+    public Response solve(String solver, long timeoutMs, long seed, String instance, Consumer<String> lines) throws IOException {
+        out.println("SOLVE " + solver + " " + timeoutMs + " " + seed + " FILE " + instance);
+        out.flush();
+        return await(lines);
+    }
+
+    /** Solves an instance sent as the lines of its file. */
+    public Response solve(String solver, long timeoutMs, long seed, List<String> instance, Consumer<String> lines) throws IOException {
+        out.println("SOLVE " + solver + " " + timeoutMs + " " + seed + " TEXT " + instance.size());
+        for(String line : instance)
+            out.println(line);
+        out.flush();
+        return await(lines);
+    }
+
+    /** Reads the answers to the last request until its result, giving each line to `lines`.
+     * Throws an IOException with the message of the server if the request failed. */
+    private Response await(Consumer<String> lines) throws IOException {
+        String line;
+        while((line = in.readLine()) != null) {
+            lines.accept(line);
+            String[] words = line.split(" ");
+            if(words[0].equals("ERROR"))
+                throw new IOException(line.substring(line.indexOf(' ', 6) + 1));
+            if(words[0].equals("RESULT")) {
+                int[] startTimes = new int[words.length - 5];
+                for(int i = 0 ; i < startTimes.length ; i++)
+                    startTimes[i] = Integer.parseInt(words[i + 5]);
+                return new Response(Long.parseLong(words[1]), Long.parseLong(words[2]), Integer.parseInt(words[3]),
+                        Result.ExitCause.valueOf(words[4]), startTimes);
+            }
+        }
+        throw new IOException("connection closed by the server");
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-client").build()
+                .defaultHelp(true)
+                .description("Sends a solve request to a jobshop.Server and prints its answers.");
+
+        parser.addArgument("-p", "--port")
+                .type(Integer.class)
+                .setDefault(Server.DEFAULT_PORT)
+                .help("Port of the server on the loopback interface");
+        parser.addArgument("-s", "--solver")
+                .setDefault("taboo")
+                .help("Solver to use");
+        parser.addArgument("-i", "--instance")
+                .required(true)
+                .help("Instance name or path, as seen by the server");
+        parser.addArgument("--send")
+                .action(Arguments.storeTrue())
+                .help("Reads the instance file here and sends its content to the server");
+        parser.addArgument("-t", "--timeout")
+                .type(Long.class)
+                .setDefault(1000L)
+                .help("Solver timeout in milliseconds");
+        parser.addArgument("--seed")
+                .type(Long.class)
+                .setDefault(0L)
+                .help("Seed of randomized solvers");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        String solver = ns.getString("solver");
+        String instance = ns.getString("instance");
+        try(Client client = new Client(ns.getInt("port"))) {
+            // results are printed below without their start times, errors on the error output
+            Consumer<String> print = line -> {
+                if(!line.startsWith("RESULT") && !line.startsWith("ERROR"))
+                    System.out.println(line);
+            };
+            Response response = ns.getBoolean("send")
+                    ? client.solve(solver, ns.getLong("timeout"), ns.getLong("seed"), Files.readAllLines(Main.instancePath(instance)), print)
+                    : client.solve(solver, ns.getLong("timeout"), ns.getLong("seed"), instance, print);
+            List<String> times = new ArrayList<>();
+            for(int t : response.startTimes)
+                times.add(String.valueOf(t));
+            System.out.println("RESULT " + response.id + " " + response.elapsed + " " + response.makespan + " " + response.cause);
+            System.out.println("start times: " + String.join(" ", times));
+        } catch (IOException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -2,10 +2,12 @@ package jobshop;
 
 import jobshop.encodings.Task;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
@@ -20,17 +22,52 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    /** Total number of operations (tasks of all jobs). Operation ids are in [0, numOps). */
+    public final int numOps;
+
+    // durations and machines of all operations, stored row-major :
+    // operation (job, task) has id `job * numTasks + task`
+    final int[] durations;
+    final int[] machines;
+
+    /** Id of the operation corresponding to the task-th task of the given job. */
+    public int op(int job, int task) {
+        return job * numTasks + task;
+    }
+    /** Job of the given operation. */
+    public int jobOf(int op) {
+        return op / numTasks;
+    }
+    /** Index of the given operation inside its job. */
+    public int taskOf(int op) {
+        return op % numTasks;
+    }
+    /** Next operation in the same job, or -1 if op is the last task of its job. */
+    public int nextInJob(int op) {
+        return (op + 1) % numTasks == 0 ? -1 : op + 1;
+    }
+    /** Previous operation in the same job, or -1 if op is the first task of its job. */
+    public int prevInJob(int op) {
+        return op % numTasks == 0 ? -1 : op - 1;
+    }
+
+    /** Duration of the given operation. */
+    public int duration(int op) {
+        return durations[op];
+    }
+    /** Machine of the given operation. */
+    public int machine(int op) {
+        return machines[op];
+    }
 
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
     public int duration(Task t) {
         return duration(t.job, t.task);
     }
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
     public int machine(Task t) {
         return this.machine(t.job, t.task);
@@ -49,14 +86,20 @@ public class Instance {
         this.numJobs = numJobs;
         this.numTasks = numTasks;
         this.numMachines = numTasks;
+        this.numOps = numJobs * numTasks;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        durations = new int[numOps];
+        machines = new int[numOps];
     }
 
     /** Parses a instance from a file. */
     public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
+        return fromLines(Files.readAllLines(path));
+    }
+
+    /** Parses a instance from the lines of a file, lines starting with `#` are comments. */
+    public static Instance fromLines(List<String> fileLines) {
+        Iterator<String> lines = fileLines.stream()
                 .filter(l -> !l.startsWith("#"))
                 .collect(Collectors.toList())
                 .iterator();
@@ -69,11 +112,30 @@ public class Instance {
         for(int job = 0 ; job<num_jobs ; job++) {
             Scanner line = new Scanner(lines.next());
             for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+                pb.machines[pb.op(job, task)] = line.nextInt();
+                pb.durations[pb.op(job, task)] = line.nextInt();
             }
         }
 
         return pb;
     }
+
+    /** Writes this instance to a file, in the same format as the one read by `fromFile`.
+     * The optional comment is written as a `#` line before the header. */
+    public void toFile(Path path, String comment) throws IOException {
+        try(BufferedWriter out = Files.newBufferedWriter(path)) {
+            if(comment != null)
+                out.write("# " + comment + "\n");
+            out.write(numJobs + " " + numTasks + "\n");
+            for(int job = 0 ; job < numJobs ; job++) {
+                StringBuilder line = new StringBuilder();
+                for(int task = 0 ; task < numTasks ; task++) {
+                    if(task > 0)
+                        line.append(' ');
+                    line.append(machine(job, task)).append(' ').append(duration(job, task));
+                }
+                out.write(line.append('\n').toString());
+            }
+        }
+    }
 }
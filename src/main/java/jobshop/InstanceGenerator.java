@@ -0,0 +1,183 @@
+package jobshop;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/** Deterministic generator of random jobshop instances.
+ *
+ * Follows the procedure of E. Taillard, "Benchmarks for basic scheduling problems" (EJOR, 1993) :
+ * durations are drawn with the time seed, then each job gets a random permutation of the machines
+ * drawn with the machine seed. With the default parameters (UNIFORM durations in [1,99]) and the
+ * seeds given in the paper, it reproduces the ta01-ta80 instances exactly.
+ */
+public class InstanceGenerator {
+
+    /** How durations are distributed. */
+    public enum Distribution {
+        /** Taillard's distribution : all durations uniform in [minDuration, maxDuration] */
+        UNIFORM,
+        /** Each job has its own mean duration, tasks of the same job have similar durations */
+        JOB_CORRELATED,
+        /** Each machine has its own mean duration, tasks on the same machine have similar durations */
+        MACHINE_CORRELATED
+    }
+
+    public final int numJobs;
+    public final int numMachines;
+    public final int minDuration;
+    public final int maxDuration;
+    public final Distribution distribution;
+
+    /** Generator with Taillard's parameters : uniform durations in [1, 99]. */
+    public InstanceGenerator(int numJobs, int numMachines) {
+        this(numJobs, numMachines, 1, 99, Distribution.UNIFORM);
+    }
+
+    public InstanceGenerator(int numJobs, int numMachines, int minDuration, int maxDuration, Distribution distribution) {
+        if(numJobs <= 0 || numMachines <= 0)
+            throw new IllegalArgumentException("Instance must have at least one job and one machine");
+        if(minDuration < 0 || maxDuration < minDuration)
+            throw new IllegalArgumentException("Invalid duration range ["+minDuration+", "+maxDuration+"]");
+        this.numJobs = numJobs;
+        this.numMachines = numMachines;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+        this.distribution = distribution;
+    }
+
+    /** Generates the instance corresponding to the given pair of seeds. The same seeds always give the same instance. */
+    public Instance generate(int timeSeed, int machineSeed) {
+        if(timeSeed <= 0 || machineSeed <= 0)
+            throw new IllegalArgumentException("Seeds must be strictly positive");
+        Instance pb = new Instance(numJobs, numMachines);
+        Lcg time = new Lcg(timeSeed);
+        Lcg mach = new Lcg(machineSeed);
+
+        // for correlated distributions, one center per job (resp. machine) drawn before any duration
+        int[] centers = new int[0];
+        if(distribution == Distribution.JOB_CORRELATED)
+            centers = new int[numJobs];
+        else if(distribution == Distribution.MACHINE_CORRELATED)
+            centers = new int[numMachines];
+        for(int i = 0 ; i < centers.length ; i++)
+            centers[i] = time.unif(minDuration, maxDuration);
+        int spread = Math.max(1, (maxDuration - minDuration) / 10);
+
+        // machine order of each job : a random permutation of the machines
+        for(int job = 0 ; job < numJobs ; job++) {
+            int first = pb.op(job, 0);
+            for(int m = 0 ; m < numMachines ; m++)
+                pb.machines[first + m] = m;
+            for(int m = 0 ; m < numMachines ; m++) {
+                int other = first + mach.unif(m, numMachines - 1);
+                int tmp = pb.machines[first + m];
+                pb.machines[first + m] = pb.machines[other];
+                pb.machines[other] = tmp;
+            }
+        }
+
+        // durations of each task, in the order of the job (time and machine seeds are independent streams)
+        for(int job = 0 ; job < numJobs ; job++) {
+            for(int task = 0 ; task < numMachines ; task++) {
+                int op = pb.op(job, task);
+                if(distribution == Distribution.UNIFORM) {
+                    pb.durations[op] = time.unif(minDuration, maxDuration);
+                } else {
+                    int center = distribution == Distribution.JOB_CORRELATED ? centers[job] : centers[pb.machine(op)];
+                    pb.durations[op] = time.unif(Math.max(minDuration, center - spread), Math.min(maxDuration, center + spread));
+                }
+            }
+        }
+        return pb;
+    }
+
+    /** Lehmer generator used by Taillard (a = 16807, m = 2^31 - 1, Schrage's decomposition). */
+    static final class Lcg {
+        private int seed;
+
+        Lcg(int seed) {
+            this.seed = seed;
+        }
+
+        /** Returns an integer uniformly drawn in [low, high]. */
+        int unif(int low, int high) {
+            int k = seed / 127773;
+            seed = 16807 * (seed % 127773) - k * 2836;
+            if(seed < 0)
+                seed += Integer.MAX_VALUE;
+            double value = seed / (double) Integer.MAX_VALUE;
+            return low + (int) Math.floor(value * (high - low + 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-generator").build()
+                .defaultHelp(true)
+                .description("Generates random jobshop instances with Taillard's procedure.");
+
+        parser.addArgument("-j", "--jobs")
+                .type(Integer.class)
+                .required(true)
+                .help("Number of jobs");
+        parser.addArgument("-m", "--machines")
+                .type(Integer.class)
+                .required(true)
+                .help("Number of machines (and tasks per job)");
+        parser.addArgument("--time-seed")
+                .type(Integer.class)
+                .setDefault(840612802)
+                .help("Seed used to draw durations");
+        parser.addArgument("--machine-seed")
+                .type(Integer.class)
+                .setDefault(398197754)
+                .help("Seed used to draw machine orders");
+        parser.addArgument("--min")
+                .type(Integer.class)
+                .setDefault(1)
+                .help("Minimal duration of a task");
+        parser.addArgument("--max")
+                .type(Integer.class)
+                .setDefault(99)
+                .help("Maximal duration of a task");
+        parser.addArgument("--distribution")
+                .type(Distribution.class)
+                .setDefault(Distribution.UNIFORM)
+                .help("Distribution of durations");
+        parser.addArgument("-o", "--output")
+                .required(true)
+                .help("File in which to write the instance (e.g. instances/gen500x20)");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        InstanceGenerator generator = new InstanceGenerator(
+                ns.getInt("jobs"), ns.getInt("machines"),
+                ns.getInt("min"), ns.getInt("max"),
+                ns.get("distribution"));
+        int timeSeed = ns.getInt("time_seed");
+        int machineSeed = ns.getInt("machine_seed");
+        Instance instance = generator.generate(timeSeed, machineSeed);
+
+        Path output = Paths.get(ns.getString("output"));
+        String comment = String.format("Generated: %d jobs, %d machines, %s durations in [%d, %d], time seed %d, machine seed %d",
+                generator.numJobs, generator.numMachines, generator.distribution,
+                generator.minDuration, generator.maxDuration, timeSeed, machineSeed);
+        try {
+            instance.toFile(output, comment);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package jobshop;
+
+/** Lower bounds of the optimal makespan of an instance.
+ *
+ * A solver whose makespan reaches the bound of `of(instance)` can stop and report `ProvedOptimal`.
+ */
+public class LowerBound {
+
+    /** Best of all the bounds below. */
+    public static int of(Instance instance) {
+        return Math.max(Math.max(maxJobLength(instance), maxMachineLoad(instance)), oneMachine(instance));
+    }
+
+    /** Total duration of the longest job. */
+    public static int maxJobLength(Instance instance) {
+        int bound = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int length = 0;
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                length += instance.duration(j, t);
+            bound = Math.max(bound, length);
+        }
+        return bound;
+    }
+
+    /** Total duration of the tasks of the most loaded machine. */
+    public static int maxMachineLoad(Instance instance) {
+        int[] load = new int[instance.numMachines];
+        for(int op = 0 ; op < instance.numOps ; op++)
+            load[instance.machine(op)] += instance.duration(op);
+        int bound = 0;
+        for(int l : load)
+            bound = Math.max(bound, l);
+        return bound;
+    }
+
+    /** Largest Jackson preemptive bound over all machines, where the head (resp. tail) of a task is the total duration
+     * of the tasks before (resp. after) it in its job. */
+    public static int oneMachine(Instance instance) {
+        int[] head = new int[instance.numOps];
+        int[] tail = new int[instance.numOps];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int sum = 0;
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                head[instance.op(j, t)] = sum;
+                sum += instance.duration(j, t);
+            }
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                tail[instance.op(j, t)] = sum - head[instance.op(j, t)] - instance.duration(j, t);
+        }
+
+        int bound = 0;
+        int[] r = new int[instance.numJobs];
+        int[] p = new int[instance.numJobs];
+        int[] q = new int[instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int n = 0;
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                if(instance.machine(op) != m)
+                    continue;
+                r[n] = head[op];
+                p[n] = instance.duration(op);
+                q[n] = tail[op];
+                n++;
+            }
+            bound = Math.max(bound, jacksonPreemptive(r, p, q, n));
+        }
+        return bound;
+    }
+
+    /** Makespan of Jackson's preemptive schedule of the first n tasks : at any time, the available task with the
+     * largest tail is executed. It is a lower bound of the one-machine problem with heads r, durations p and tails q. */
+    public static int jacksonPreemptive(int[] r, int[] p, int[] q, int n) {
+        int[] remaining = new int[n];
+        System.arraycopy(p, 0, remaining, 0, n);
+        boolean[] finished = new boolean[n];
+        int done = 0;
+        int time = 0;
+        int bound = 0;
+        while(done < n) {
+            // available task with the largest tail, and next release among unavailable ones
+            int current = -1;
+            int nextRelease = Integer.MAX_VALUE;
+            for(int i = 0 ; i < n ; i++) {
+                if(finished[i])
+                    continue;
+                if(r[i] <= time) {
+                    if(current == -1 || q[i] > q[current])
+                        current = i;
+                } else {
+                    nextRelease = Math.min(nextRelease, r[i]);
+                }
+            }
+            if(current == -1) {
+                time = nextRelease;
+                continue;
+            }
+            // run it until it completes or until the next release, which may preempt it
+            int run = Math.min(remaining[current], nextRelease - time);
+            time += run;
+            remaining[current] -= run;
+            if(remaining[current] == 0) {
+                finished[current] = true;
+                done++;
+                bound = Math.max(bound, time + q[current]);
+            }
+        }
+        return bound;
+    }
+}
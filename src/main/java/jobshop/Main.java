@@ -1,18 +1,30 @@
 package jobshop;
 
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.LongFunction;
 
 import jobshop.solvers.BasicSolver;
+import jobshop.solvers.BeamSearchSolver;
+import jobshop.solvers.BranchAndBoundSolver;
 import jobshop.solvers.DescentSolver;
+import jobshop.solvers.GeneticSolver;
+import jobshop.solvers.GifflerThompsonSolver;
 import jobshop.solvers.GreedySolver;
 import jobshop.solvers.GreedySolver.Priority;
+import jobshop.solvers.IteratedLocalSearchSolver;
+import jobshop.solvers.LargeNeighborhoodSolver;
+import jobshop.solvers.PathRelinkingSolver;
+import jobshop.solvers.PortfolioSolver;
 import jobshop.solvers.RandomSolver;
+import jobshop.solvers.ShiftingBottleneckSolver;
+import jobshop.solvers.SimulatedAnnealingSolver;
 import jobshop.solvers.TabooSolver;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -22,24 +34,53 @@ import net.sourceforge.argparse4j.inf.Namespace;
 
 public class Main {
 
-    /** All solvers available in this program */
-    private static HashMap<String, Solver> solvers;
-    static {
-        solvers = new HashMap<>();
-        solvers.put("basic", new BasicSolver());
-        solvers.put("random", new RandomSolver());
-        solvers.put("descent", new DescentSolver());
-        solvers.put("taboo", new TabooSolver(50,10));
-        solvers.put("SPT", new GreedySolver(Priority.SPT));
-        solvers.put("LRPT", new GreedySolver(Priority.LRPT));
-        solvers.put("LPT", new GreedySolver(Priority.LPT));
-        solvers.put("SRPT", new GreedySolver(Priority.SRPT));
-        solvers.put("EST_SPT", new GreedySolver(Priority.EST_SPT));
-        solvers.put("EST_LPT", new GreedySolver(Priority.EST_LPT));
-        solvers.put("EST_SRPT", new GreedySolver(Priority.EST_SRPT));
-        solvers.put("EST_LRPT", new GreedySolver(Priority.EST_LRPT));
+    /** Parameters of the taboo solver, set by the --taboo-* options */
+    private static int tabooIterations = Integer.MAX_VALUE;
+    private static int tabooTenure = TabooSolver.DEFAULT_TENURE;
+    private static int tabooStagnation = TabooSolver.DEFAULT_STAGNATION;
+    private static double tabooPenalty = TabooSolver.DEFAULT_PENALTY;
+    private static int tabooElite = TabooSolver.DEFAULT_ELITE;
+
+    /** All solvers available in this program, built from a seed (ignored by deterministic solvers) */
+    static HashMap<String, LongFunction<Solver>> solvers = solvers(Runtime.getRuntime().availableProcessors());
+
+    /** All solvers, the parallel ones using nproc threads */
+    static HashMap<String, LongFunction<Solver>> solvers(int nproc) {
+        HashMap<String, LongFunction<Solver>> solvers = new HashMap<>();
+        solvers.put("basic", seed -> new BasicSolver());
+        solvers.put("random", seed -> new RandomSolver(seed, 1));
+        solvers.put("random-par", seed -> new RandomSolver(seed, nproc));
+        solvers.put("descent", seed -> new DescentSolver());
+        solvers.put("taboo", Main::taboo);
+        solvers.put("annealing", seed -> new SimulatedAnnealingSolver(seed, SimulatedAnnealingSolver.DEFAULT_STAGNATION));
+        solvers.put("genetic", seed -> new GeneticSolver(100, GeneticSolver.Crossover.JOX, 0.2, false, seed, nproc));
+        solvers.put("memetic", seed -> new GeneticSolver(100, GeneticSolver.Crossover.JOX, 0.2, true, seed, nproc));
+        solvers.put("bnb", seed -> new BranchAndBoundSolver());
+        solvers.put("shifting", seed -> new ShiftingBottleneckSolver());
+        solvers.put("gt", seed -> new GifflerThompsonSolver(Priority.LRPT));
+        solvers.put("grasp", seed -> new GifflerThompsonSolver(Priority.LRPT, 0.2, seed, nproc));
+        solvers.put("beam", seed -> new BeamSearchSolver(10, nproc));
+        solvers.put("ils", seed -> new IteratedLocalSearchSolver(IteratedLocalSearchSolver.DEFAULT_KICK_SIZE,
+                IteratedLocalSearchSolver.DEFAULT_ACCEPTANCE, seed));
+        solvers.put("lns", seed -> new LargeNeighborhoodSolver(LargeNeighborhoodSolver.DEFAULT_WINDOW_TASKS, nproc, seed));
+        solvers.put("relinking", seed -> new PathRelinkingSolver(10, seed));
+        solvers.put("portfolio", seed -> new PortfolioSolver(nproc, seed, () -> taboo(seed)));
+        solvers.put("SPT", seed -> new GreedySolver(Priority.SPT));
+        solvers.put("LRPT", seed -> new GreedySolver(Priority.LRPT));
+        solvers.put("LPT", seed -> new GreedySolver(Priority.LPT));
+        solvers.put("SRPT", seed -> new GreedySolver(Priority.SRPT));
+        solvers.put("EST_SPT", seed -> new GreedySolver(Priority.EST_SPT));
+        solvers.put("EST_LPT", seed -> new GreedySolver(Priority.EST_LPT));
+        solvers.put("EST_SRPT", seed -> new GreedySolver(Priority.EST_SRPT));
+        solvers.put("EST_LRPT", seed -> new GreedySolver(Priority.EST_LRPT));
 
         // add new solvers here
+        return solvers;
+    }
+
+    /** Taboo solver with the parameters of the --taboo-* options */
+    private static TabooSolver taboo(long seed) {
+        return new TabooSolver(tabooIterations, tabooTenure, tabooStagnation, tabooPenalty, tabooElite, seed);
     }
 
 
@@ -61,6 +102,41 @@ public class Main {
                 .nargs("+")
                 .required(true)
                 .help("Instance(s) to solve (space separated if more than one)");
+        parser.addArgument("--seeds")
+                .type(Integer.class)
+                .help("Runs each solver with this number of seeds on each instance, and reports statistics over the runs");
+        parser.addArgument("--threads")
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .type(Integer.class)
+                .help("Number of runs in parallel with --seeds, each run using a single thread");
+        parser.addArgument("--baseline")
+                .help("Solver to which the others are compared with --seeds (by default, the first one)");
+        parser.addArgument("--target")
+                .setDefault(5.0)
+                .type(Double.class)
+                .help("Gap to the best known result, in percent, of the target of the time to target with --seeds");
+        parser.addArgument("--json")
+                .help("File in which to write the runs and statistics of --seeds as JSON");
+        parser.addArgument("--taboo-iterations")
+                .setDefault(Integer.MAX_VALUE)
+                .type(Integer.class)
+                .help("Maximum number of iterations of the taboo solver");
+        parser.addArgument("--taboo-tenure")
+                .setDefault(TabooSolver.DEFAULT_TENURE)
+                .type(Integer.class)
+                .help("Number of iterations during which a move of the taboo solver stays forbidden");
+        parser.addArgument("--taboo-stagnation")
+                .setDefault(TabooSolver.DEFAULT_STAGNATION)
+                .type(Integer.class)
+                .help("Iterations without improvement after which the taboo solver restarts from an elite solution");
+        parser.addArgument("--taboo-penalty")
+                .setDefault(TabooSolver.DEFAULT_PENALTY)
+                .type(Double.class)
+                .help("Weight of the penalty of frequently reversed arcs in the taboo solver (0 to disable it)");
+        parser.addArgument("--taboo-elite")
+                .setDefault(TabooSolver.DEFAULT_ELITE)
+                .type(Integer.class)
+                .help("Number of elite solutions kept by the taboo solver for restarts");
 
         Namespace ns = null;
         try {
@@ -70,6 +146,17 @@ public class Main {
             System.exit(1);
         }
 
+        // runs of --seeds are already parallel : parallel solvers would compete for the same processors
+        if(ns.get("seeds") != null)
+            solvers = solvers(1);
+
+        // read by the taboo solvers when they are built
+        tabooIterations = ns.getInt("taboo_iterations");
+        tabooTenure = ns.getInt("taboo_tenure");
+        tabooStagnation = ns.getInt("taboo_stagnation");
+        tabooPenalty = ns.getDouble("taboo_penalty");
+        tabooElite = ns.getInt("taboo_elite");
+
         PrintStream output = System.out;
 
         long solveTimeMs = ns.getLong("timeout") * 1000;
@@ -88,40 +175,71 @@ public class Main {
         for(String instancePrefix : instancePrefixes) {
             List<String> matches = BestKnownResult.instancesMatching(instancePrefix);
             if(matches.isEmpty()) {
+                // not a known benchmark, but may be an instance file (e.g. produced by InstanceGenerator)
+                if(Files.isRegularFile(instancePath(instancePrefix))) {
+                    instances.add(instancePrefix);
+                    continue;
+                }
                 System.err.println("ERROR: instance prefix \"" + instancePrefix + "\" does not match any instance.");
                 System.err.println("       available instances: " + Arrays.toString(BestKnownResult.instances));
+                System.err.println("       You can also give the path of an instance file.");
                 System.exit(1);
             }
             instances.addAll(matches);
         }
 
+        if(ns.get("seeds") != null) {
+            String baseline = ns.getString("baseline") != null ? ns.getString("baseline") : solversToTest.get(0);
+            if(!solversToTest.contains(baseline)) {
+                System.err.println("ERROR: baseline \"" + baseline + "\" is not one of the solvers.");
+                System.exit(1);
+            }
+            Benchmark benchmark = new Benchmark(solvers, solversToTest, instances, solveTimeMs, ns.getInt("seeds"), ns.getDouble("target"));
+            try {
+                benchmark.run(ns.getInt("threads"));
+                benchmark.report(output, baseline);
+                if(ns.getString("json") != null)
+                    benchmark.writeJson(Paths.get(ns.getString("json")), baseline);
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            return;
+        }
+
         float[] runtimes = new float[solversToTest.size()];
         float[] distances = new float[solversToTest.size()];
+        float[] gaps = new float[solversToTest.size()];
+        // number of instances with a known best result, over which distances are averaged
+        int numKnown = (int) instances.stream().filter(BestKnownResult::isKnown).count();
 
         try {
-            output.print(  "                         ");
+            output.print(  "                                ");
             for(String s : solversToTest)
                 output.printf("%-30s", s);
             output.println();
-            output.print("instance size  best      ");
+            output.print("instance size  best  bound      ");
             for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+                output.print("runtime makespan ecart   gap  ");
             }
             output.println();
 
 
             for(String instanceName : instances) {
-                int bestKnown = BestKnownResult.of(instanceName);
+                boolean known = BestKnownResult.isKnown(instanceName);
+                int bestKnown = known ? BestKnownResult.of(instanceName) : -1;
 
 
-                Path path = Paths.get("instances/", instanceName);
+                Path path = instancePath(instanceName);
                 Instance instance = Instance.fromFile(path);
+                // also known for our own instances : the gap to it bounds the distance to the optimum
+                int bound = LowerBound.of(instance);
 
-                output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
+                output.printf("%-8s %-5s %4s %6d      ", path.getFileName(), instance.numJobs +"x"+instance.numTasks, known ? bestKnown : "-", bound);
 
                 for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
                     String solverName = solversToTest.get(solverId);
-                    Solver solver = solvers.get(solverName);
+                    Solver solver = solvers.get(solverName).apply(0);
                     long start = System.currentTimeMillis();
                     long deadline = System.currentTimeMillis() + solveTimeMs;
                     Result result = solver.solve(instance, deadline);
@@ -134,11 +252,17 @@ public class Main {
 
                     assert result.schedule.isValid();
                     int makespan = result.schedule.makespan();
-                    float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
                     runtimes[solverId] += (float) runtime / (float) instances.size();
-                    distances[solverId] += dist / (float) instances.size();
-
-                    output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
+                    // a null bound only happens when all durations are null, and then every schedule is optimal
+                    float gap = bound == 0 ? 0f : 100f * (makespan - bound) / (float) bound;
+                    gaps[solverId] += gap / (float) instances.size();
+                    if(known) {
+                        float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
+                        distances[solverId] += dist / (float) numKnown;
+                        output.printf("%7d %8s %5.1f %5.1f  ", runtime, makespan, dist, gap);
+                    } else {
+                        output.printf("%7d %8s %5s %5.1f  ", runtime, makespan, "-", gap);
+                    }
                     output.flush();
                 }
                 output.println();
@@ -146,9 +270,12 @@ public class Main {
             }
 
 
-            output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
+            output.printf("%-8s %-5s %4s %6s      ", "AVG", "-", "-", "-");
             for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                output.printf("%7.1f %8s %5.1f        ", runtimes[solverId], "-", distances[solverId]);
+                if(numKnown > 0)
+                    output.printf("%7.1f %8s %5.1f %5.1f  ", runtimes[solverId], "-", distances[solverId], gaps[solverId]);
+                else
+                    output.printf("%7.1f %8s %5s %5.1f  ", runtimes[solverId], "-", "-", gaps[solverId]);
             }
 
 
@@ -158,4 +285,12 @@ public class Main {
             System.exit(1);
         }
     }
+
+    /** Location of an instance : either a path to an existing file or the name of a file in the `instances` directory. */
+    static Path instancePath(String instance) {
+        Path path = Paths.get(instance);
+        if(Files.isRegularFile(path))
+            return path;
+        return Paths.get("instances/", instance);
+    }
 }
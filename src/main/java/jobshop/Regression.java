@@ -0,0 +1,263 @@
+package jobshop;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.solvers.IteratedLocalSearchSolver;
+import jobshop.solvers.ShiftingBottleneckSolver;
+import jobshop.solvers.TabooSolver;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/** Performance regression suite : measures throughput and solution quality on a fixed set of instances, with fixed
+ * seeds and budgets, and compares them with a baseline file.
+ *
+ * Metrics whose name starts with `throughput.` are rates (higher is better) : decodings of `ResourceOrder.toSchedule`,
+ * incremental moves of `LongestPaths` and iterations of `TabooSolver` per second. Each one is the best of several
+ * measures, to filter out the noise of the machine. Metrics starting with `makespan.` are solution qualities (lower is
+ * better) : a taboo search and an iterated local search with fixed seeds and numbers of iterations, which makes them
+ * deterministic. Both start from the solution of `ShiftingBottleneckSolver`, which is not timed. A metric fails if it is worse than its baseline by more than the tolerance of its kind.
+ *
+ * Throughput depends on the machine : the baseline should be recorded on the machine running the checks.
+ */
+public class Regression {
+
+    static final String[] THROUGHPUT_INSTANCES = {"ft10", "ta21", "ta71"};
+    static final String[] QUALITY_INSTANCES = {"ft10", "la24", "ta21"};
+    /** Number of measures of each throughput, after a warm-up one. The best one is kept. */
+    static final int MEASURES = 3;
+    static final long MEASURE_MS = 500;
+    static final int TABOO_ITERATIONS = 300;
+    static final int ILS_KICKS = 2000;
+    static final long SEED = 0;
+
+    /** Sum of the measured results, kept so that the measured code is not optimized away */
+    static volatile long checksum;
+
+    /** Runs all benchmarks and returns their metrics, sorted by name. */
+    static Map<String, Double> measure(PrintStream log) throws IOException {
+        Map<String, Double> metrics = new TreeMap<>();
+        for(String name : THROUGHPUT_INSTANCES) {
+            Instance instance = Instance.fromFile(Paths.get("instances", name));
+            metrics.put("throughput.decodes_per_s." + name, best(() -> decodes(instance)));
+            metrics.put("throughput.moves_per_s." + name, best(() -> moves(instance)));
+            if(log != null)
+                log.println("measured throughput on " + name);
+        }
+        for(String name : QUALITY_INSTANCES) {
+            Instance instance = Instance.fromFile(Paths.get("instances", name));
+            ResourceOrder initial = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, Long.MAX_VALUE).schedule);
+            // deterministic : only the time changes from one run to the other
+            Result[] taboo = new Result[1];
+            metrics.put("throughput.taboo_iterations_per_s." + name, best(() -> {
+                long start = System.nanoTime();
+                taboo[0] = new TabooSolver(TABOO_ITERATIONS, 10, 100, 0.5, 5, SEED).solve(initial, Long.MAX_VALUE);
+                return TABOO_ITERATIONS / ((System.nanoTime() - start) / 1e9);
+            }));
+            metrics.put("makespan.taboo." + name, (double) taboo[0].schedule.makespan());
+            Result ils = new IteratedLocalSearchSolver(3, IteratedLocalSearchSolver.Acceptance.NOT_WORSE, SEED, ILS_KICKS)
+                    .solve(instance, Long.MAX_VALUE);
+            metrics.put("makespan.ils." + name, (double) ils.schedule.makespan());
+            if(log != null)
+                log.println("measured quality on " + name);
+        }
+        return metrics;
+    }
+
+    private interface Measure {
+        double rate();
+    }
+
+    private static double best(Measure measure) {
+        measure.rate(); // lets the JIT compile the measured code
+        double best = 0;
+        for(int i = 0 ; i < MEASURES ; i++)
+            best = Math.max(best, measure.rate());
+        return best;
+    }
+
+    /** Decodings per second of random resource orders. */
+    static double decodes(Instance instance) {
+        Random random = new Random(SEED);
+        ResourceOrder[] orders = new ResourceOrder[64];
+        for(int i = 0 ; i < orders.length ; i++)
+            orders[i] = ResourceOrder.fromJobNumbers(JobNumbers.random(instance, random));
+        long count = 0;
+        long sum = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MS * 1_000_000;
+        long now;
+        do {
+            for(ResourceOrder order : orders)
+                sum += order.toSchedule().makespan();
+            count += orders.length;
+            now = System.nanoTime();
+        } while(now < end);
+        checksum += sum;
+        return count / ((now - start) / 1e9);
+    }
+
+    /** Swaps of adjacent tasks of critical blocks per second, each one applied, evaluated and undone incrementally. */
+    static double moves(Instance instance) {
+        Random random = new Random(SEED);
+        LongestPaths paths = new LongestPaths(new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, Long.MAX_VALUE).schedule));
+        // adjacent tasks of the critical path on the same machine are adjacent in the order of that machine
+        List<Task> path = paths.criticalPath();
+        List<int[]> swaps = new ArrayList<>();
+        for(int i = 0 ; i + 1 < path.size() ; i++) {
+            int machine = instance.machine(path.get(i));
+            if(machine != instance.machine(path.get(i + 1)))
+                continue;
+            Task[] tasks = paths.order.tasksByMachine[machine];
+            for(int k = 0 ; k + 1 < tasks.length ; k++)
+                if(tasks[k].equals(path.get(i)))
+                    swaps.add(new int[] {machine, k, k + 1});
+        }
+        if(swaps.isEmpty())
+            return 0;
+        long count = 0;
+        long sum = 0;
+        long start = System.nanoTime();
+        long end = start + MEASURE_MS * 1_000_000;
+        long now;
+        do {
+            for(int k = 0 ; k < 64 ; k++) {
+                int[] swap = swaps.get(random.nextInt(swaps.size()));
+                paths.swap(swap[0], swap[1], swap[2]);
+                sum += paths.makespan();
+                paths.swap(swap[0], swap[1], swap[2]);
+            }
+            count += 64;
+            now = System.nanoTime();
+        } while(now < end);
+        checksum += sum;
+        return count / ((now - start) / 1e9);
+    }
+
+    /** Compares the metrics with the baseline and returns the description of each failure.
+     * Metrics absent from the baseline never fail. */
+    static List<String> compare(Map<String, Double> baseline, Map<String, Double> metrics,
+                                double throughputTolerance, double qualityTolerance, PrintStream output) {
+        List<String> failures = new ArrayList<>();
+        if(output != null)
+            output.printf("%-40s %12s %12s %8s%n", "metric", "baseline", "current", "change");
+        for(Map.Entry<String, Double> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            double current = entry.getValue();
+            Double reference = baseline.get(name);
+            String status = "new";
+            String change = "-";
+            if(reference != null) {
+                double ratio = current / reference;
+                change = String.format("%+7.1f%%", 100 * (ratio - 1));
+                boolean failed = name.startsWith("throughput.")
+                        ? ratio < 1 - throughputTolerance
+                        : ratio > 1 + qualityTolerance;
+                status = failed ? "FAILED" : "ok";
+                if(failed)
+                    failures.add(name + " : " + format(current) + " instead of " + format(reference));
+            }
+            if(output != null)
+                output.printf("%-40s %12s %12s %8s  %s%n", name, reference == null ? "-" : format(reference), format(current), change, status);
+        }
+        return failures;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && value < 1e6 ? String.valueOf((long) value) : String.format("%.0f", value);
+    }
+
+    static Map<String, Double> load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try(Reader reader = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+        Map<String, Double> metrics = new TreeMap<>();
+        for(String name : properties.stringPropertyNames())
+            metrics.put(name, Double.parseDouble(properties.getProperty(name)));
+        return metrics;
+    }
+
+    static void store(Path path, Map<String, Double> metrics) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Baseline of the performance regression suite (jobshop.Regression), recorded with");
+        lines.add("# " + Runtime.getRuntime().availableProcessors() + " processor(s), Java " + System.getProperty("java.version")
+                + ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        for(Map.Entry<String, Double> entry : metrics.entrySet())
+            lines.add(entry.getKey() + "=" + format(entry.getValue()));
+        if(path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        Files.write(path, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-regression").build()
+                .defaultHelp(true)
+                .description("Checks throughput and solution quality against a baseline.");
+
+        parser.addArgument("--baseline")
+                .setDefault("regression/baseline.properties")
+                .help("Baseline file");
+        parser.addArgument("--record")
+                .action(Arguments.storeTrue())
+                .help("Records the current metrics as the new baseline instead of checking them");
+        parser.addArgument("--tolerance")
+                .type(Double.class)
+                .setDefault(0.3)
+                .help("Maximal relative decrease of a throughput (measures vary by about 20% on a loaded machine)");
+        parser.addArgument("--quality-tolerance")
+                .type(Double.class)
+                .setDefault(0.01)
+                .help("Maximal relative increase of a makespan");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        Path path = Paths.get(ns.getString("baseline"));
+        try {
+            if(!ns.getBoolean("record") && !Files.isRegularFile(path)) {
+                System.err.println("ERROR: no baseline in " + path + ", record one with --record.");
+                System.exit(1);
+            }
+            Map<String, Double> metrics = measure(System.out);
+            if(ns.getBoolean("record")) {
+                store(path, metrics);
+                System.out.println("Baseline recorded in " + path);
+                return;
+            }
+            List<String> failures = compare(load(path), metrics, ns.getDouble("tolerance"), ns.getDouble("quality_tolerance"), System.out);
+            if(!failures.isEmpty()) {
+                System.err.println("ERROR: " + failures.size() + " metric(s) degraded beyond the tolerance :");
+                for(String failure : failures)
+                    System.err.println("       " + failure);
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -8,20 +8,58 @@ import java.util.stream.IntStream;
 
 public class Schedule {
     public final Instance pb;
-    // start times of each job and task
-    // times[j][i] is the start time of task (j,i) : i^th task of the j^th job
-    final int[][] times;
+    // start times of each job and task, indexed by operation id
+    // times[pb.op(j,i)] is the start time of task (j,i) : i^th task of the j^th job
+    final int[] times;
+
+    // lazily computed from times (the schedule is immutable)
+    private int makespan = -1;
 
     public Schedule(Instance pb, int[][] times) {
         this.pb = pb;
-        this.times = new int[pb.numJobs][];
+        this.times = new int[pb.numOps];
         for(int j = 0 ; j < pb.numJobs ; j++) {
-            this.times[j] = Arrays.copyOf(times[j], pb.numTasks);
+            System.arraycopy(times[j], 0, this.times, pb.op(j, 0), pb.numTasks);
         }
     }
 
+    private Schedule(Instance pb, int[] times) {
+        this.pb = pb;
+        this.times = times;
+    }
+
+    /** Creates a schedule that takes ownership of the given start times (indexed by operation id), without copying them.
+     * Reserved to callers that have just allocated the array and never modify it afterwards. */
+    public static Schedule wrap(Instance pb, int[] startTimes) {
+        assert startTimes.length == pb.numOps;
+        return new Schedule(pb, startTimes);
+    }
+
     public int startTime(int job, int task) {
-        return times[job][task];
+        return times[pb.op(job, task)];
+    }
+
+    /** Start time of the given operation. */
+    public int startTime(int op) {
+        return times[op];
+    }
+
+    /** End time of the given operation. */
+    public int endTime(int op) {
+        return times[op] + pb.duration(op);
+    }
+
+    /** Returns all operation ids sorted by increasing start time (ties broken by operation id, i.e. by job then task). */
+    public int[] opsByStartTime() {
+        // sort (start time, op) pairs packed in longs to stay on primitive arrays
+        long[] keys = new long[pb.numOps];
+        for(int op = 0 ; op < pb.numOps ; op++)
+            keys[op] = ((long) times[op] << 32) | op;
+        Arrays.sort(keys);
+        int[] ops = new int[pb.numOps];
+        for(int i = 0 ; i < pb.numOps ; i++)
+            ops[i] = (int) keys[i];
+        return ops;
     }
 
     /** Returns true if this schedule is valid (no constraint is violated) */
@@ -56,11 +94,16 @@ public class Schedule {
     }
 
     public int makespan() {
-        int max = -1;
-        for(int j = 0 ; j<pb.numJobs ; j++) {
-            max = Math.max(max, startTime(j, pb.numTasks-1) + pb.duration(j, pb.numTasks -1));
+        if(makespan < 0) {
+            int max = 0;
+            // the last task of each job ends last in its job
+            for(int j = 0 ; j<pb.numJobs ; j++) {
+                int op = pb.op(j, pb.numTasks-1);
+                max = Math.max(max, times[op] + pb.duration(op));
+            }
+            makespan = max;
         }
-        return max;
+        return makespan;
     }
 
     public int startTime(Task task) {
@@ -68,7 +111,7 @@ public class Schedule {
     }
 
     public int endTime(Task task) {
-        return startTime(task) + pb.duration(task.job, task.task);
+        return endTime(pb.op(task.job, task.task));
     }
 
     public boolean isCriticalPath(List<Task> path) {
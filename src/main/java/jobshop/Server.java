@@ -0,0 +1,309 @@
+package jobshop;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/** Long-running solver daemon : keeps the JVM, its loaded classes and its compiled code warm between solves, which
+ * makes the whole time budget of short requests available to the solvers.
+ *
+ * The server listens on a TCP socket of the loopback interface and talks a line-based protocol. Each request is a
+ * single line, with the instance given by its name or path (resolved like in `Main`, from the directory of the
+ * server), or inline as the given number of lines of an instance file that follow the request :
+ *
+ *     SOLVE <solver> <timeout ms> <seed> FILE <instance name or path>
+ *     SOLVE <solver> <timeout ms> <seed> TEXT <number of lines>
+ *
+ * A client may send several requests on the same connection without waiting for their results. Each request gets an
+ * id, and the server answers with lines tagged by that id :
+ *
+ *     ACCEPTED <id>
+ *     IMPROVED <id> <ms since the request> <makespan>      for each solution reported by the solver
+ *     RESULT <id> <ms since the request> <makespan> <exit cause> <start time of each operation>
+ *     ERROR <id> <message>                                 instead of a result
+ *
+ * Start times are given by operation number, job * numTasks + task. The timeout runs from the reception of the
+ * request, time waiting in the queue included. Requests are solved by a fixed number of workers, with single-threaded
+ * solvers ; when all of them are busy and the queue is full, requests are rejected with an error instead of being
+ * delayed past their deadline. The waiting requests of a closed connection are dropped. Inline instances are limited
+ * to `MAX_INSTANCE_LINES` lines.
+ */
+public class Server implements Closeable {
+
+    public static final int DEFAULT_PORT = 5170;
+
+    /** Solvers of the requests : the workers already solve requests in parallel, each solver uses a single thread */
+    static final HashMap<String, LongFunction<Solver>> solvers = Main.solvers(1);
+    /** Maximal number of lines of an inline instance */
+    static final int MAX_INSTANCE_LINES = 100_000;
+
+    private final ServerSocket socket;
+    private final ThreadPoolExecutor workers;
+    /** one thread per connection, reading its requests */
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final AtomicLong nextId = new AtomicLong();
+
+    /** Listens on the given port of the loopback interface (0 for any free port). */
+    public Server(int port, int numWorkers, int queueSize) throws IOException {
+        socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)));
+    }
+
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    /** Accepts connections until the server is closed. */
+    public void serve() {
+        while(!socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                connections.execute(() -> handle(client));
+            } catch (SocketException e) {
+                // closed
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Starts accepting connections on a background thread. */
+    public Server start() {
+        Thread thread = new Thread(this::serve, "jobshop-server");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void handle(Socket client) {
+        // requests of the connection that may still be waiting or running
+        List<Future<?>> requests = new ArrayList<>();
+        try(Socket s = client;
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = in.readLine()) != null) {
+                if(line.trim().isEmpty())
+                    continue;
+                long received = System.currentTimeMillis();
+                long id = nextId.getAndIncrement();
+                Request request;
+                try {
+                    request = Request.parse(line, in);
+                } catch (IllegalArgumentException e) {
+                    send(out, "ERROR " + id + " " + e.getMessage());
+                    continue;
+                } catch (IOException e) {
+                    // the next lines may belong to an unread instance : the connection cannot go on
+                    send(out, "ERROR " + id + " " + e.getMessage());
+                    return;
+                }
+                try {
+                    requests.removeIf(Future::isDone);
+                    // holding the connection until ACCEPTED is sent, so that it precedes the first improvement
+                    synchronized(out) {
+                        requests.add(workers.submit(() -> solve(id, request, received, out)));
+                        send(out, "ACCEPTED " + id);
+                    }
+                } catch (RejectedExecutionException e) {
+                    send(out, "ERROR " + id + " server busy, " + workers.getMaximumPoolSize() + " requests running and "
+                            + workers.getQueue().size() + " waiting");
+                }
+            }
+        } catch (IOException e) {
+            // connection lost
+        } finally {
+            // nobody reads the results anymore : waiting requests leave the queue, running ones are interrupted
+            // (solvers stop at their deadline, unless they are waiting for their own threads)
+            for(Future<?> request : requests)
+                request.cancel(true);
+            workers.purge();
+        }
+    }
+
+    private void solve(long id, Request request, long received, PrintWriter out) {
+        try {
+            Instance instance = request.instance();
+            Solver solver = request.solver.apply(request.seed);
+            Result result = solver.solve(instance, received + request.timeoutMs, schedule ->
+                    send(out, "IMPROVED " + id + " " + (System.currentTimeMillis() - received) + " " + schedule.makespan()));
+            if(!result.schedule.isValid()) {
+                send(out, "ERROR " + id + " the solver returned an invalid schedule");
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("RESULT ").append(id).append(' ').append(System.currentTimeMillis() - received)
+                    .append(' ').append(result.schedule.makespan()).append(' ').append(result.cause);
+            for(int op = 0 ; op < instance.numOps ; op++)
+                sb.append(' ').append(result.schedule.startTime(op));
+            send(out, sb.toString());
+        } catch (Exception e) {
+            send(out, "ERROR " + id + " " + e);
+        }
+    }
+
+    /** Lines of the requests of a connection are written by several workers. */
+    private static void send(PrintWriter out, String line) {
+        synchronized(out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    /** A parsed SOLVE request. */
+    static class Request {
+        final String solverName;
+        final LongFunction<Solver> solver;
+        final long timeoutMs;
+        final long seed;
+        /** name or path of the instance, null if given inline */
+        final String instanceName;
+        final List<String> instanceLines;
+
+        private Request(String solverName, LongFunction<Solver> solver, long timeoutMs, long seed,
+                        String instanceName, List<String> instanceLines) {
+            this.solverName = solverName;
+            this.solver = solver;
+            this.timeoutMs = timeoutMs;
+            this.seed = seed;
+            this.instanceName = instanceName;
+            this.instanceLines = instanceLines;
+        }
+
+        /** Parses a request line, reading the following lines of an inline instance from `in`. */
+        static Request parse(String line, BufferedReader in) throws IOException {
+            String[] words = line.trim().split("\\s+", 6);
+            if(words.length != 6 || !words[0].equals("SOLVE"))
+                throw new IllegalArgumentException("expected SOLVE <solver> <timeout ms> <seed> FILE|TEXT <instance>, got: " + line);
+            LongFunction<Solver> solver = solvers.get(words[1]);
+            if(solver == null)
+                throw new IllegalArgumentException("unknown solver " + words[1] + ", available: " + solvers.keySet());
+            long timeoutMs;
+            long seed;
+            try {
+                timeoutMs = Long.parseLong(words[2]);
+                seed = Long.parseLong(words[3]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid timeout or seed in: " + line);
+            }
+            switch(words[4]) {
+                case "FILE":
+                    return new Request(words[1], solver, timeoutMs, seed, words[5], null);
+                case "TEXT":
+                    int count;
+                    try {
+                        count = Integer.parseInt(words[5]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("invalid number of lines: " + words[5]);
+                    }
+                    if(count < 0 || count > MAX_INSTANCE_LINES)
+                        throw new IOException("invalid number of lines: " + count + ", at most " + MAX_INSTANCE_LINES + " are accepted");
+                    List<String> lines = new ArrayList<>();
+                    for(int i = 0 ; i < count ; i++) {
+                        String l = in.readLine();
+                        if(l == null)
+                            throw new IOException("connection closed in the middle of an instance");
+                        lines.add(l);
+                    }
+                    return new Request(words[1], solver, timeoutMs, seed, null, lines);
+                default:
+                    throw new IllegalArgumentException("expected FILE or TEXT, got: " + words[4]);
+            }
+        }
+
+        Instance instance() throws IOException {
+            return instanceName != null ? Instance.fromFile(Main.instancePath(instanceName)) : Instance.fromLines(instanceLines);
+        }
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-server").build()
+                .defaultHelp(true)
+                .description("Serves solve requests on a local socket, see jobshop.Client.");
+
+        parser.addArgument("-p", "--port")
+                .type(Integer.class)
+                .setDefault(DEFAULT_PORT)
+                .help("Port of the loopback interface to listen on");
+        parser.addArgument("--workers")
+                .type(Integer.class)
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .help("Number of requests solved at the same time");
+        parser.addArgument("--queue")
+                .type(Integer.class)
+                .setDefault(16)
+                .help("Number of requests waiting for a worker before new ones are rejected");
+        parser.addArgument("--warmup")
+                .nargs("*")
+                .setDefault(Arrays.asList("taboo", "ils", "lns"))
+                .help("Solvers run once on ft10 before serving, to load and compile their code");
+        parser.addArgument("--warmup-time")
+                .type(Long.class)
+                .setDefault(1000L)
+                .help("Time of each warm-up run in milliseconds");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        try {
+            List<String> warmup = ns.getList("warmup");
+            if(!warmup.isEmpty()) {
+                Instance instance = Instance.fromFile(Paths.get("instances", "ft10"));
+                for(String name : warmup) {
+                    if(!solvers.containsKey(name)) {
+                        System.err.println("ERROR: unknown solver " + name + ", available: " + solvers.keySet());
+                        System.exit(1);
+                    }
+                    solvers.get(name).apply(0).solve(instance, System.currentTimeMillis() + ns.getLong("warmup_time"));
+                    System.out.println("warmed up " + name);
+                }
+            }
+            Server server = new Server(ns.getInt("port"), ns.getInt("workers"), ns.getInt("queue"));
+            System.out.println("listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.port());
+            server.serve();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package jobshop;
 
+import java.util.function.Consumer;
+
 public interface Solver {
 
     Result solve(Instance instance, long deadline);
 
+    /** Same as solve, and reports the best solution to the listener each time it improves, as soon as it is found.
+     * By default, only the final solution is reported. */
+    default Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+        Result result = solve(instance, deadline);
+        listener.accept(result.schedule);
+        return result;
+    }
+
 }
@@ -0,0 +1,170 @@
+package jobshop;
+
+import java.util.Arrays;
+
+/** Statistics used to compare solvers over several runs.
+ *
+ * Quantiles of the test distributions are approximations (Wilson-Hilferty for the chi-square distribution,
+ * Cornish-Fisher for Student's t, Abramowitz-Stegun for the normal distribution) that are accurate to a few
+ * percent, which is enough to decide a race or to compare two solvers.
+ */
+public class Statistics {
+
+    /** Quantile of order 0.95 of the standard normal distribution. */
+    static final double Z_95 = 1.6448536;
+    /** Quantile of order 0.975 of the standard normal distribution. */
+    static final double Z_975 = 1.9599640;
+
+    public static double mean(double[] values) {
+        double sum = 0;
+        for(double v : values)
+            sum += v;
+        return sum / values.length;
+    }
+
+    public static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    /** Sample standard deviation, 0 for less than two values. */
+    public static double std(double[] values) {
+        if(values.length < 2)
+            return 0;
+        double mean = mean(values);
+        double sum = 0;
+        for(double v : values)
+            sum += (v - mean) * (v - mean);
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    /** Ranks of the values, from 1 for the smallest one. Tied values get the average of their ranks. */
+    public static double[] ranks(double[] values) {
+        Integer[] order = new Integer[values.length];
+        for(int i = 0 ; i < values.length ; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] ranks = new double[values.length];
+        for(int i = 0 ; i < values.length ; ) {
+            int j = i;
+            while(j + 1 < values.length && values[order[j + 1]] == values[order[i]])
+                j++;
+            for(int k = i ; k <= j ; k++)
+                ranks[order[k]] = (i + j) / 2.0 + 1;
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    /** Approximate quantile of order 0.95 of the chi-square distribution with the given degrees of freedom. */
+    public static double chiSquare95(int df) {
+        double a = 2.0 / (9 * df);
+        return df * Math.pow(1 - a + Z_95 * Math.sqrt(a), 3);
+    }
+
+    /** Approximate quantile of order 0.975 of Student's t distribution with the given degrees of freedom. */
+    public static double student975(int df) {
+        double z = Z_975;
+        double z3 = z * z * z, z5 = z3 * z * z, z7 = z5 * z * z;
+        return z + (z3 + z) / (4 * df)
+                 + (5 * z5 + 16 * z3 + 3 * z) / (96.0 * df * df)
+                 + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384.0 * df * df * df);
+    }
+
+    /** Friedman test on results[block][treatment] (lower is better), as used by F-race.
+     *
+     * Returns null if the treatments are not significantly different at level 0.05. Otherwise, returns for each
+     * treatment whether it is significantly worse than the best one (the one with the smallest sum of ranks),
+     * according to the post-hoc test of Conover.
+     */
+    public static boolean[] friedman(double[][] results) {
+        int b = results.length;
+        int k = results[0].length;
+        if(b < 2 || k < 2)
+            return null;
+        double[] rankSums = new double[k];
+        double sumSquares = 0;
+        for(double[] block : results) {
+            double[] ranks = ranks(block);
+            for(int j = 0 ; j < k ; j++) {
+                rankSums[j] += ranks[j];
+                sumSquares += ranks[j] * ranks[j];
+            }
+        }
+        double c = b * k * (k + 1) * (k + 1) / 4.0;
+        if(sumSquares == c)
+            return null; // all blocks are ties
+        double spread = 0;
+        double sumRankSquares = 0;
+        for(int j = 0 ; j < k ; j++) {
+            spread += (rankSums[j] - b * (k + 1) / 2.0) * (rankSums[j] - b * (k + 1) / 2.0);
+            sumRankSquares += rankSums[j] * rankSums[j];
+        }
+        double statistic = (k - 1) * spread / (sumSquares - c);
+        if(statistic <= chiSquare95(k - 1))
+            return null;
+
+        int best = 0;
+        for(int j = 1 ; j < k ; j++)
+            if(rankSums[j] < rankSums[best])
+                best = j;
+        int df = (b - 1) * (k - 1);
+        double threshold = student975(df) * Math.sqrt(2 * b * (sumSquares - sumRankSquares / b) / df);
+        boolean[] worse = new boolean[k];
+        for(int j = 0 ; j < k ; j++)
+            worse[j] = rankSums[j] - rankSums[best] > threshold;
+        return worse;
+    }
+
+    /** Cumulative distribution function of the standard normal distribution (Abramowitz and Stegun 7.1.26). */
+    public static double normalCdf(double x) {
+        double t = 1 / (1 + 0.3275911 * Math.abs(x) / Math.sqrt(2));
+        double erfc = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+                * Math.exp(-x * x / 2);
+        return x >= 0 ? 1 - erfc / 2 : erfc / 2;
+    }
+
+    /** Wilcoxon signed-rank test on paired samples : two-sided p-value of the hypothesis that the differences a - b
+     * are symmetric around 0, with the normal approximation corrected for ties. Zero differences are discarded,
+     * and the p-value is 1 if all differences are zero. */
+    public static double wilcoxon(double[] a, double[] b) {
+        int n = 0;
+        for(int i = 0 ; i < a.length ; i++)
+            if(a[i] != b[i])
+                n++;
+        if(n == 0)
+            return 1;
+        double[] magnitudes = new double[n];
+        boolean[] positive = new boolean[n];
+        for(int i = 0, k = 0 ; i < a.length ; i++) {
+            if(a[i] != b[i]) {
+                magnitudes[k] = Math.abs(a[i] - b[i]);
+                positive[k++] = a[i] > b[i];
+            }
+        }
+        double[] ranks = ranks(magnitudes);
+        double wPlus = 0;
+        for(int k = 0 ; k < n ; k++)
+            if(positive[k])
+                wPlus += ranks[k];
+
+        // each group of t tied magnitudes reduces the variance by (t^3 - t) / 48
+        double variance = n * (n + 1) * (2 * n + 1) / 24.0;
+        double[] sorted = magnitudes.clone();
+        Arrays.sort(sorted);
+        for(int i = 0 ; i < n ; ) {
+            int j = i;
+            while(j + 1 < n && sorted[j + 1] == sorted[i])
+                j++;
+            double t = j - i + 1;
+            variance -= (t * t * t - t) / 48;
+            i = j + 1;
+        }
+        if(variance <= 0)
+            return 1;
+        double z = (wPlus - n * (n + 1) / 4.0) / Math.sqrt(variance);
+        return 2 * (1 - normalCdf(Math.abs(z)));
+    }
+}
@@ -0,0 +1,294 @@
+package jobshop;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jobshop.solvers.IteratedLocalSearchSolver;
+import jobshop.solvers.LargeNeighborhoodSolver;
+import jobshop.solvers.SimulatedAnnealingSolver;
+import jobshop.solvers.TabooSolver;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/** Tunes the parameters of a solver per instance family with F-race.
+ *
+ * Candidate configurations are drawn from the grid of values of the parameters of the solver. They are all run on
+ * the instances of the family one at a time, in parallel and with the same seed and time budget. Once enough
+ * instances have been seen, a Friedman test on the ranks of the makespans after each instance eliminates the
+ * configurations that are significantly worse than the best one (M. Birattari et al., "A racing algorithm for
+ * configuring metaheuristics", GECCO 2002). The best surviving configuration is reported for each family.
+ */
+public class Tuner {
+
+    /** A parameter of a solver and the values tried by the tuner. */
+    static class Parameter {
+        final String name;
+        final double[] values;
+
+        Parameter(String name, double... values) {
+            this.name = name;
+            this.values = values;
+        }
+    }
+
+    /** Solvers whose parameters can be tuned, with the values of their parameters used in Main. */
+    public enum Tunable {
+        TABOO(new double[] {TabooSolver.DEFAULT_TENURE, TabooSolver.DEFAULT_STAGNATION, TabooSolver.DEFAULT_PENALTY,
+                TabooSolver.DEFAULT_ELITE},
+                new Parameter("tenure", 5, 8, 10, 12, 15, 20),
+                new Parameter("stagnation", 500, 1000, 2000, 3000, 5000, 10000),
+                new Parameter("penalty", 0, 0.25, 0.5, 1, 2),
+                new Parameter("elite", 1, 3, 5, 10)) {
+            Solver build(double[] v, long seed) {
+                return new TabooSolver(Integer.MAX_VALUE, (int) v[0], (int) v[1], v[2], (int) v[3], seed);
+            }
+        },
+        ANNEALING(new double[] {SimulatedAnnealingSolver.DEFAULT_STAGNATION},
+                new Parameter("stagnation", 0, 10000, 30000, 100000, 300000, 1000000)) {
+            Solver build(double[] v, long seed) {
+                return new SimulatedAnnealingSolver(seed, (int) v[0]);
+            }
+        },
+        ILS(new double[] {IteratedLocalSearchSolver.DEFAULT_KICK_SIZE, IteratedLocalSearchSolver.DEFAULT_ACCEPTANCE.ordinal()},
+                new Parameter("kick", 1, 2, 3, 4, 5, 6),
+                new Parameter("acceptance", ordinals(IteratedLocalSearchSolver.Acceptance.values()))) {
+            Solver build(double[] v, long seed) {
+                return new IteratedLocalSearchSolver((int) v[0], IteratedLocalSearchSolver.Acceptance.values()[(int) v[1]], seed);
+            }
+        },
+        LNS(new double[] {LargeNeighborhoodSolver.DEFAULT_WINDOW_TASKS},
+                new Parameter("window", 3, 4, 5, 6, 7, 8, 9)) {
+            Solver build(double[] v, long seed) {
+                return new LargeNeighborhoodSolver((int) v[0], 1, seed);
+            }
+        };
+
+        final double[] defaults;
+        final Parameter[] parameters;
+
+        Tunable(double[] defaults, Parameter... parameters) {
+            this.defaults = defaults;
+            this.parameters = parameters;
+        }
+
+        /** Solver with the given values of the parameters. */
+        abstract Solver build(double[] values, long seed);
+
+        /** Values of a parameter choosing a constant of an enum, by its ordinal. */
+        private static double[] ordinals(Enum<?>[] constants) {
+            double[] values = new double[constants.length];
+            for(int i = 0 ; i < constants.length ; i++)
+                values[i] = constants[i].ordinal();
+            return values;
+        }
+    }
+
+    /** Values of all the parameters of a solver. */
+    static class Configuration {
+        final Tunable solver;
+        final double[] values;
+
+        Configuration(Tunable solver, double[] values) {
+            this.solver = solver;
+            this.values = values;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for(int i = 0 ; i < values.length ; i++) {
+                double v = values[i];
+                sb.append(i == 0 ? "" : " ").append(solver.parameters[i].name).append('=')
+                        .append(v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v));
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Result of a configuration on an instance, lower is better. Called concurrently. */
+    interface Evaluator {
+        double evaluate(Configuration configuration, String instance) throws Exception;
+    }
+
+    /** The default configuration of the solver followed by configurations drawn uniformly from the grid, all
+     * different. Returns the whole grid if it has no more than `count` configurations. */
+    static List<Configuration> sample(Tunable solver, int count, Random random) {
+        List<Configuration> configurations = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        configurations.add(new Configuration(solver, solver.defaults));
+        seen.add(Arrays.toString(solver.defaults));
+        long gridSize = 1;
+        for(Parameter parameter : solver.parameters)
+            gridSize *= parameter.values.length;
+        while(configurations.size() < Math.min(count, gridSize)) {
+            double[] values = new double[solver.parameters.length];
+            for(int i = 0 ; i < values.length ; i++)
+                values[i] = solver.parameters[i].values[random.nextInt(solver.parameters[i].values.length)];
+            if(seen.add(Arrays.toString(values)))
+                configurations.add(new Configuration(solver, values));
+        }
+        return configurations;
+    }
+
+    /** Races the configurations on the instances, in order, and returns the surviving configurations sorted by
+     * their mean rank. No configuration is eliminated before `minInstances` instances have been seen.
+     * The configurations alive are evaluated in parallel on the pool, one instance at a time. */
+    static List<Configuration> race(List<Configuration> configurations, List<String> instances, int minInstances,
+                                    ExecutorService pool, Evaluator evaluator, PrintStream log) throws InterruptedException, ExecutionException {
+        List<Configuration> alive = new ArrayList<>(configurations);
+        // results[i][c] : result of the i-th instance for the c-th configuration of the initial list
+        double[][] results = new double[instances.size()][configurations.size()];
+        int seen = 0;
+        for(String instance : instances) {
+            if(alive.size() == 1)
+                break;
+            List<Future<Double>> futures = new ArrayList<>();
+            for(Configuration configuration : alive)
+                futures.add(pool.submit(() -> evaluator.evaluate(configuration, instance)));
+            for(int c = 0 ; c < alive.size() ; c++)
+                results[seen][configurations.indexOf(alive.get(c))] = futures.get(c).get();
+            seen++;
+
+            if(seen >= minInstances) {
+                boolean[] worse = Statistics.friedman(restrict(results, seen, configurations, alive));
+                if(worse != null) {
+                    List<Configuration> survivors = new ArrayList<>();
+                    for(int c = 0 ; c < alive.size() ; c++)
+                        if(!worse[c])
+                            survivors.add(alive.get(c));
+                    alive = survivors;
+                }
+            }
+            if(log != null)
+                log.printf("  %-8s %3d configurations left%n", instance, alive.size());
+        }
+
+        // sort the survivors by their sum of ranks over the instances seen
+        double[] rankSums = new double[alive.size()];
+        for(double[] block : restrict(results, seen, configurations, alive)) {
+            double[] ranks = Statistics.ranks(block);
+            for(int c = 0 ; c < alive.size() ; c++)
+                rankSums[c] += ranks[c];
+        }
+        List<Integer> order = new ArrayList<>();
+        for(int c = 0 ; c < alive.size() ; c++)
+            order.add(c);
+        order.sort(Comparator.comparingDouble(c -> rankSums[c]));
+        List<Configuration> sorted = new ArrayList<>();
+        for(int c : order)
+            sorted.add(alive.get(c));
+        return sorted;
+    }
+
+    /** Results of the first `seen` instances for the configurations still alive. */
+    private static double[][] restrict(double[][] results, int seen, List<Configuration> all, List<Configuration> alive) {
+        double[][] restricted = new double[seen][alive.size()];
+        for(int i = 0 ; i < seen ; i++)
+            for(int c = 0 ; c < alive.size() ; c++)
+                restricted[i][c] = results[i][all.indexOf(alive.get(c))];
+        return restricted;
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-tuner").build()
+                .defaultHelp(true)
+                .description("Tunes the parameters of a solver for each instance family with F-race.");
+
+        parser.addArgument("--solver")
+                .type(Tunable.class)
+                .setDefault(Tunable.TABOO)
+                .help("Solver to tune");
+        parser.addArgument("--family")
+                .nargs("+")
+                .setDefault(Arrays.asList("ft", "la", "orb", "swv", "ta", "yn"))
+                .help("Instance families, given by a prefix of their names");
+        parser.addArgument("--instances")
+                .type(Integer.class)
+                .setDefault(10)
+                .help("Maximal number of instances of each family, drawn at random");
+        parser.addArgument("--configs")
+                .type(Integer.class)
+                .setDefault(20)
+                .help("Number of candidate configurations, including the default one");
+        parser.addArgument("--min-instances")
+                .type(Integer.class)
+                .setDefault(4)
+                .help("Number of instances seen before the first elimination");
+        parser.addArgument("-t", "--budget")
+                .type(Long.class)
+                .setDefault(1000L)
+                .help("Time budget of each run in milliseconds");
+        parser.addArgument("--threads")
+                .type(Integer.class)
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .help("Number of runs in parallel");
+        parser.addArgument("--seed")
+                .type(Long.class)
+                .setDefault(0L)
+                .help("Seed of the sampling of configurations and instances, and of the solvers");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        Tunable solver = ns.get("solver");
+        long budget = ns.getLong("budget");
+        long seed = ns.getLong("seed");
+        Random random = new Random(seed);
+        List<Configuration> configurations = sample(solver, ns.getInt("configs"), random);
+        // the same seed for every run : configurations are compared on the same random streams
+        Evaluator evaluator = (configuration, instance) -> {
+            Instance pb = Instance.fromFile(Paths.get("instances", instance));
+            Result result = configuration.solver.build(configuration.values, seed).solve(pb, System.currentTimeMillis() + budget);
+            return result.schedule.makespan();
+        };
+
+        PrintStream output = System.out;
+        List<String> summary = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(ns.getInt("threads"));
+        try {
+            for(String family : ns.<String>getList("family")) {
+                List<String> instances = new ArrayList<>(BestKnownResult.instancesMatching(family));
+                if(instances.isEmpty()) {
+                    System.err.println("WARNING: no instance in family \"" + family + "\"");
+                    continue;
+                }
+                Collections.shuffle(instances, random);
+                instances = instances.subList(0, Math.min(instances.size(), ns.getInt("instances")));
+
+                output.printf("%s : %d configurations of %s on %d instances%n", family, configurations.size(), solver, instances.size());
+                List<Configuration> best = race(configurations, instances, ns.getInt("min_instances"), pool, evaluator, output);
+                output.printf("  best : %s%n", best.get(0));
+                summary.add(String.format("%-8s %s", family, best.get(0)));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        output.println();
+        output.println("family   best configuration of " + solver);
+        for(String line : summary)
+            output.println(line);
+    }
+}
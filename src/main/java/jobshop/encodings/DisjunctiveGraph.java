@@ -0,0 +1,342 @@
+package jobshop.encodings;
+
+import jobshop.Encoding;
+import jobshop.Instance;
+import jobshop.Schedule;
+
+import java.util.Arrays;
+
+/** Representation of a solution as a disjunctive graph, where each machine has been given a total order.
+ *
+ * Nodes are operation ids (see `Instance.op`). Each operation has at most one successor and one predecessor
+ * on its job and on its machine, stored in doubly linked int arrays (-1 when there is none).
+ * A topological order of the graph is maintained incrementally (Pearce-Kelly) so that moves on the machine
+ * orders cost O(1) plus the size of the part of the order that actually needs to be fixed.
+ */
+public class DisjunctiveGraph extends Encoding {
+
+    /** Successor and predecessor of each operation on its job. Never modified. */
+    public final int[] jobNext;
+    public final int[] jobPrev;
+
+    /** Successor and predecessor of each operation on its machine. */
+    final int[] machineNext;
+    final int[] machinePrev;
+    /** First operation on each machine. */
+    final int[] machineFirst;
+
+    /** Topological order of the operations and position of each operation in it. */
+    final int[] order;
+    final int[] position;
+
+    // buffers of the incremental reordering, allocated once
+    private final int[] stack;
+    private final boolean[] visited;
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] positions;
+
+    private DisjunctiveGraph(Instance instance) {
+        super(instance);
+        int n = instance.numOps;
+        jobNext = new int[n];
+        jobPrev = new int[n];
+        for(int op = 0 ; op < n ; op++) {
+            jobNext[op] = instance.nextInJob(op);
+            jobPrev[op] = instance.prevInJob(op);
+        }
+        machineNext = new int[n];
+        machinePrev = new int[n];
+        machineFirst = new int[instance.numMachines];
+        order = new int[n];
+        position = new int[n];
+        stack = new int[n];
+        visited = new boolean[n];
+        forward = new int[n];
+        backward = new int[n];
+        positions = new int[n];
+    }
+
+    /** Builds the graph corresponding to a complete resource order. Returns null if the resource order contains a cycle. */
+    public static DisjunctiveGraph fromResourceOrder(ResourceOrder resourceOrder) {
+        DisjunctiveGraph graph = new DisjunctiveGraph(resourceOrder.instance);
+        return graph.load(resourceOrder) ? graph : null;
+    }
+
+    /** Replaces the machine orders of this graph by the ones of the resource order and rebuilds the topological order.
+     * Returns false if the resource order contains a cycle, in which case the graph must be reloaded before use. */
+    boolean load(ResourceOrder resourceOrder) {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int prev = -1;
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                Task t = resourceOrder.tasksByMachine[m][i];
+                int op = instance.op(t.job, t.task);
+                machinePrev[op] = prev;
+                if(prev == -1)
+                    machineFirst[m] = op;
+                else
+                    machineNext[prev] = op;
+                prev = op;
+            }
+            machineNext[prev] = -1;
+        }
+        return computeTopologicalOrder();
+    }
+
+    /** Converts the machine orders of this graph back to a resource order. */
+    public ResourceOrder toResourceOrder() {
+        ResourceOrder resourceOrder = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int op = machineFirst[m] ; op != -1 ; op = machineNext[op]) {
+                resourceOrder.tasksByMachine[m][resourceOrder.nextFreeSlot[m]++] = new Task(instance.jobOf(op), instance.taskOf(op));
+            }
+        }
+        return resourceOrder;
+    }
+
+    /** Creates an exact copy of this graph. */
+    public DisjunctiveGraph copy() {
+        DisjunctiveGraph copy = new DisjunctiveGraph(instance);
+        System.arraycopy(machineNext, 0, copy.machineNext, 0, machineNext.length);
+        System.arraycopy(machinePrev, 0, copy.machinePrev, 0, machinePrev.length);
+        System.arraycopy(machineFirst, 0, copy.machineFirst, 0, machineFirst.length);
+        System.arraycopy(order, 0, copy.order, 0, order.length);
+        System.arraycopy(position, 0, copy.position, 0, position.length);
+        return copy;
+    }
+
+    /** Successor of the operation on its machine, or -1 if it is the last one. */
+    public int machineNext(int op) {
+        return machineNext[op];
+    }
+
+    /** Predecessor of the operation on its machine, or -1 if it is the first one. */
+    public int machinePrev(int op) {
+        return machinePrev[op];
+    }
+
+    /** First operation executed on the machine. */
+    public int machineFirst(int machine) {
+        return machineFirst[machine];
+    }
+
+    /** Operation at the given position of the maintained topological order. */
+    public int opAt(int pos) {
+        return order[pos];
+    }
+
+    /** Position of the operation in the maintained topological order. */
+    public int positionOf(int op) {
+        return position[op];
+    }
+
+    @Override
+    public Schedule toSchedule() {
+        // earliest start times, in topological order
+        int[] startTimes = new int[instance.numOps];
+        for(int op : order) {
+            int est = 0;
+            int p = jobPrev[op];
+            if(p != -1)
+                est = startTimes[p] + instance.duration(p);
+            p = machinePrev[op];
+            if(p != -1)
+                est = Math.max(est, startTimes[p] + instance.duration(p));
+            startTimes[op] = est;
+        }
+        return Schedule.wrap(instance, startTimes);
+    }
+
+    /** Reverses the arc u -> v between two operations executed consecutively on the same machine, so that v
+     * executes just before u. Returns false and leaves the graph unchanged if this would create a cycle. */
+    public boolean reverse(int u, int v) {
+        assert machineNext[u] == v;
+        int before = machinePrev[u];
+        int after = machineNext[v];
+
+        // before -> u -> v -> after   becomes   before -> v -> u -> after
+        link(before, v, instance.machine(v));
+        link(v, u, instance.machine(u));
+        link(u, after, instance.machine(u));
+
+        // only the new arc v -> u may contradict the topological order
+        if(!addArc(v, u)) {
+            link(before, u, instance.machine(u));
+            link(u, v, instance.machine(u));
+            link(v, after, instance.machine(u));
+            return false;
+        }
+        return true;
+    }
+
+    /** Moves op on its machine so that it executes right after `target` (or first on the machine if target is -1).
+     * Returns false and leaves the graph unchanged if this would create a cycle. */
+    public boolean moveAfter(int op, int target) {
+        int machine = instance.machine(op);
+        assert target == -1 || instance.machine(target) == machine;
+        if(target == op || machinePrev[op] == target)
+            return true;
+        int oldPrev = machinePrev[op];
+        int oldNext = machineNext[op];
+
+        // unlink op (removing arcs never invalidates the topological order)
+        link(oldPrev, oldNext, machine);
+
+        // insert after target
+        int next = target == -1 ? machineFirst[machine] : machineNext[target];
+        link(target, op, machine);
+        link(op, next, machine);
+
+        if(!(target == -1 || addArc(target, op)) || !(next == -1 || addArc(op, next))) {
+            // undo the move ; the order may have been partially updated so we rebuild it
+            link(target, next, machine);
+            link(oldPrev, op, machine);
+            link(op, oldNext, machine);
+            boolean acyclic = computeTopologicalOrder();
+            assert acyclic;
+            return false;
+        }
+        return true;
+    }
+
+    /** Moves op on its machine so that it executes right before `target`.
+     * Returns false and leaves the graph unchanged if this would create a cycle. */
+    public boolean moveBefore(int op, int target) {
+        int prev = machinePrev[target];
+        return moveAfter(op, prev == op ? machinePrev[op] : prev);
+    }
+
+    /** Sets `b` as machine successor of `a`, where either may be -1 (start or end of the machine). */
+    private void link(int a, int b, int machine) {
+        if(a == -1)
+            machineFirst[machine] = b;
+        else
+            machineNext[a] = b;
+        if(b != -1)
+            machinePrev[b] = a;
+    }
+
+    /** Updates the topological order after the arc x -> y has been added to the graph.
+     * Returns false if the arc closes a cycle, in which case the order is left unchanged. */
+    private boolean addArc(int x, int y) {
+        int lb = position[y];
+        int ub = position[x];
+        if(lb > ub)
+            return true; // order still valid
+
+        // forward : nodes reachable from y with position <= ub
+        int numForward = 0;
+        int top = 0;
+        stack[top++] = y;
+        visited[y] = true;
+        boolean cycle = false;
+        while(top > 0) {
+            int n = stack[--top];
+            forward[numForward++] = n;
+            for(int k = 0 ; k < 2 ; k++) {
+                int s = k == 0 ? jobNext[n] : machineNext[n];
+                if(s == -1)
+                    continue;
+                if(s == x) {
+                    cycle = true;
+                    break;
+                }
+                if(!visited[s] && position[s] < ub) {
+                    visited[s] = true;
+                    stack[top++] = s;
+                }
+            }
+            if(cycle)
+                break;
+        }
+        if(cycle) {
+            for(int i = 0 ; i < numForward ; i++)
+                visited[forward[i]] = false;
+            for(int i = 0 ; i < top ; i++)
+                visited[stack[i]] = false;
+            return false;
+        }
+
+        // backward : nodes that reach x with position >= lb
+        int numBackward = 0;
+        stack[top++] = x;
+        visited[x] = true;
+        while(top > 0) {
+            int n = stack[--top];
+            backward[numBackward++] = n;
+            for(int k = 0 ; k < 2 ; k++) {
+                int p = k == 0 ? jobPrev[n] : machinePrev[n];
+                if(p != -1 && !visited[p] && position[p] > lb) {
+                    visited[p] = true;
+                    stack[top++] = p;
+                }
+            }
+        }
+
+        // reassign the positions used by both sets : backward nodes first, then forward ones, each in their former order
+        sortByPosition(backward, numBackward);
+        sortByPosition(forward, numForward);
+        int numPositions = 0;
+        for(int i = 0 ; i < numBackward ; i++)
+            positions[numPositions++] = position[backward[i]];
+        for(int i = 0 ; i < numForward ; i++)
+            positions[numPositions++] = position[forward[i]];
+        Arrays.sort(positions, 0, numPositions);
+        int next = 0;
+        for(int i = 0 ; i < numBackward ; i++)
+            place(backward[i], positions[next++]);
+        for(int i = 0 ; i < numForward ; i++)
+            place(forward[i], positions[next++]);
+        return true;
+    }
+
+    private void place(int op, int pos) {
+        visited[op] = false;
+        order[pos] = op;
+        position[op] = pos;
+    }
+
+    /** Insertion sort of the first n nodes by position : the affected regions are small. */
+    private void sortByPosition(int[] nodes, int n) {
+        for(int i = 1 ; i < n ; i++) {
+            int node = nodes[i];
+            int j = i - 1;
+            while(j >= 0 && position[nodes[j]] > position[node]) {
+                nodes[j + 1] = nodes[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+        }
+    }
+
+    /** Recomputes a topological order from scratch (Kahn's algorithm). Returns false if the graph has a cycle. */
+    private boolean computeTopologicalOrder() {
+        int n = instance.numOps;
+        // number of unprocessed predecessors of each node (reusing the positions buffer)
+        int[] inDegree = positions;
+        int top = 0;
+        for(int op = 0 ; op < n ; op++) {
+            inDegree[op] = (jobPrev[op] == -1 ? 0 : 1) + (machinePrev[op] == -1 ? 0 : 1);
+            if(inDegree[op] == 0)
+                stack[top++] = op;
+        }
+        int count = 0;
+        while(top > 0) {
+            int op = stack[--top];
+            order[count] = op;
+            position[op] = count++;
+            int s = jobNext[op];
+            if(s != -1 && --inDegree[s] == 0)
+                stack[top++] = s;
+            s = machineNext[op];
+            if(s != -1 && --inDegree[s] == 0)
+                stack[top++] = s;
+        }
+        return count == n;
+    }
+
+    @Override
+    public String toString() {
+        return toResourceOrder().toString();
+    }
+}
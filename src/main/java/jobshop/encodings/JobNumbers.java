@@ -5,8 +5,7 @@ import jobshop.Instance;
 import jobshop.Schedule;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.stream.IntStream;
+import java.util.Random;
 
 /** Représentation par numéro de job. */
 public class JobNumbers extends Encoding {
@@ -30,26 +29,65 @@ public class JobNumbers extends Encoding {
 
         this.jobs = new int[instance.numJobs * instance.numTasks];
 
-        // for each job indicates which is the next task to be scheduled
-        int[] nextOnJob = new int[instance.numJobs];
-
-        while(Arrays.stream(nextOnJob).anyMatch(t -> t < instance.numTasks)) {
-            Task next = IntStream
-                    // for all jobs numbers
-                    .range(0, instance.numJobs)
-                    // build the next task for this job
-                    .mapToObj(j -> new Task(j, nextOnJob[j]))
-                    // only keep valid tasks (some jobs have no task left to be executed)
-                    .filter(t -> t.task < instance.numTasks)
-                    // select the task with the earliest execution time
-                    .min(Comparator.comparing(t -> schedule.startTime(t.job, t.task)))
-                    .get();
-
-            this.jobs[nextToSet++] = next.job;
-            nextOnJob[next.job] += 1;
+        // jobs of all tasks, in the order of their start times
+        for(int op : schedule.opsByStartTime()) {
+            this.jobs[nextToSet++] = instance.jobOf(op);
         }
     }
 
+    /** Job numbers listing all the tasks of the first job, then all those of the second one, and so on. */
+    public static JobNumbers jobByJob(Instance instance) {
+        JobNumbers sol = new JobNumbers(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                sol.jobs[sol.nextToSet++] = j;
+        return sol;
+    }
+
+    /** Job numbers of a uniformly random order of the tasks. */
+    public static JobNumbers random(Instance instance, Random random) {
+        JobNumbers sol = jobByJob(instance);
+        for(int k = sol.jobs.length - 1 ; k > 0 ; k--) {
+            int other = random.nextInt(k + 1);
+            int tmp = sol.jobs[k];
+            sol.jobs[k] = sol.jobs[other];
+            sol.jobs[other] = tmp;
+        }
+        return sol;
+    }
+
+    /** Builds the job numbers representation of a resource order, without building the schedule.
+     * Tasks are listed in a topological order of the job and machine precedences, so that decoding the result gives
+     * the same schedule as decoding the resource order.
+     * Returns null if the resource order contains a cycle. */
+    public static JobNumbers fromResourceOrder(ResourceOrder order) {
+        Instance instance = order.instance;
+        JobNumbers sol = new JobNumbers(instance);
+
+        // for each job/machine, index of the next task to list
+        int[] nextByJob = new int[instance.numJobs];
+        int[] nextByMachine = new int[instance.numMachines];
+
+        while(sol.nextToSet < sol.jobs.length) {
+            int before = sol.nextToSet;
+            for(int machine = 0 ; machine < instance.numMachines ; machine++) {
+                while(nextByMachine[machine] < instance.numJobs) {
+                    Task t = order.tasksByMachine[machine][nextByMachine[machine]];
+                    if(t.task != nextByJob[t.job])
+                        break;
+                    sol.jobs[sol.nextToSet++] = t.job;
+                    nextByJob[t.job]++;
+                    nextByMachine[machine]++;
+                }
+            }
+            if(sol.nextToSet == before) {
+                // no task can be listed : cyclic dependency
+                return null;
+            }
+        }
+        return sol;
+    }
+
     @Override
     public Schedule toSchedule() {
         // time at which each machine is going to be freed
@@ -58,23 +96,73 @@ public class JobNumbers extends Encoding {
         // for each job, the first task that has not yet been scheduled
         int[] nextTask = new int[instance.numJobs];
 
-        // for each task, its start time
-        int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        // for each task, its start time (indexed by operation id)
+        int[] startTimes = new int[instance.numOps];
 
         // compute the earliest start time for every task of every job
         for(int job : jobs) {
             int task = nextTask[job];
-            int machine = instance.machine(job, task);
+            int op = instance.op(job, task);
+            int machine = instance.machine(op);
             // earliest start time for this task
-            int est = task == 0 ? 0 : startTimes[job][task-1] + instance.duration(job, task-1);
+            int est = task == 0 ? 0 : startTimes[op - 1] + instance.duration(op - 1);
             est = Math.max(est, nextFreeTimeResource[machine]);
 
-            startTimes[job][task] = est;
-            nextFreeTimeResource[machine] = est + instance.duration(job, task);
+            startTimes[op] = est;
+            nextFreeTimeResource[machine] = est + instance.duration(op);
             nextTask[job] = task + 1;
         }
 
-        return new Schedule(instance, startTimes);
+        return Schedule.wrap(instance, startTimes);
+    }
+
+    /** Reusable buffers for `evaluateMakespan`.
+     * A scratch is bound to one instance and must not be shared between threads. */
+    public static final class Scratch {
+        final Instance instance;
+        // time at which each machine is going to be freed
+        final int[] nextFreeTimeResource;
+        // for each job, the first task that has not yet been scheduled
+        final int[] nextTask;
+        // for each job, the end time of its last scheduled task
+        final int[] jobEnd;
+
+        public Scratch(Instance instance) {
+            this.instance = instance;
+            this.nextFreeTimeResource = new int[instance.numMachines];
+            this.nextTask = new int[instance.numJobs];
+            this.jobEnd = new int[instance.numJobs];
+        }
+    }
+
+    /** Computes the makespan of the schedule represented by the given job numbers, without building it.
+     * Does not allocate : all intermediate state is kept in the scratch buffers. */
+    public static int evaluateMakespan(int[] jobs, Scratch s) {
+        return evaluateMakespan(jobs, 0, s);
+    }
+
+    /** Same as `evaluateMakespan(int[], Scratch)` for the sequence stored in jobs from index `start`
+     * (e.g. one individual in a slab holding a whole population). */
+    public static int evaluateMakespan(int[] jobs, int start, Scratch s) {
+        Instance instance = s.instance;
+        Arrays.fill(s.nextFreeTimeResource, 0);
+        Arrays.fill(s.nextTask, 0);
+        Arrays.fill(s.jobEnd, 0);
+
+        int stop = start + instance.numOps;
+        for(int i = start ; i < stop ; i++) {
+            int job = jobs[i];
+            int op = instance.op(job, s.nextTask[job]++);
+            int machine = instance.machine(op);
+            int end = Math.max(s.jobEnd[job], s.nextFreeTimeResource[machine]) + instance.duration(op);
+            s.jobEnd[job] = end;
+            s.nextFreeTimeResource[machine] = end;
+        }
+
+        int makespan = 0;
+        for(int end : s.jobEnd)
+            makespan = Math.max(makespan, end);
+        return makespan;
     }
 
     @Override
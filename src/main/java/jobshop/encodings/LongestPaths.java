@@ -0,0 +1,329 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/** Maintains the heads and tails of all operations of a resource order while swaps are applied on it.
+ *
+ * The head of an operation is its earliest start time, its tail is the length of the longest path from its end to
+ * the end of the schedule. After a swap, only the operations whose head (resp. tail) may have changed are visited,
+ * in topological (resp. reverse topological) order, and the propagation stops wherever the value is unchanged.
+ */
+public class LongestPaths {
+
+    /** The resource order, kept in sync with the applied swaps. */
+    public final ResourceOrder order;
+    public final Instance instance;
+
+    final DisjunctiveGraph graph;
+    final int[] head;
+    final int[] tail;
+
+    private final PositionHeap heap;
+
+    /** Throws an IllegalArgumentException if the resource order contains a cycle. */
+    public LongestPaths(ResourceOrder order) {
+        this.order = order;
+        this.instance = order.instance;
+        this.graph = DisjunctiveGraph.fromResourceOrder(order);
+        if(graph == null)
+            throw new IllegalArgumentException("Resource order contains a cycle");
+        this.head = new int[instance.numOps];
+        this.tail = new int[instance.numOps];
+        this.heap = new PositionHeap(graph);
+        recomputeAll();
+    }
+
+    /** Earliest start time of the operation. */
+    public int head(int op) {
+        return head[op];
+    }
+
+    /** Length of the longest path from the end of the operation to the end of the schedule. */
+    public int tail(int op) {
+        return tail[op];
+    }
+
+    public int makespan() {
+        // every operation ends before the last task of its job
+        int makespan = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int last = instance.op(j, instance.numTasks - 1);
+            makespan = Math.max(makespan, head[last] + instance.duration(last));
+        }
+        return makespan;
+    }
+
+    /** Schedule with the current heads as start times. */
+    public Schedule toSchedule() {
+        return Schedule.wrap(instance, Arrays.copyOf(head, head.length));
+    }
+
+    /** Swaps the tasks at indices t1 and t2 of the machine, in both the resource order and the heads and tails.
+     * Swaps of adjacent tasks are propagated incrementally, others trigger a full recomputation.
+     * Returns false and leaves everything unchanged if the swap would create a cycle. */
+    public boolean swap(int machine, int t1, int t2) {
+        int i = Math.min(t1, t2);
+        int k = Math.max(t1, t2);
+        Task[] tasks = order.tasksByMachine[machine];
+        int u = instance.op(tasks[i].job, tasks[i].task);
+        int v = instance.op(tasks[k].job, tasks[k].task);
+
+        if(k == i + 1) {
+            int before = graph.machinePrev(u);
+            int after = graph.machineNext(v);
+            if(!graph.reverse(u, v))
+                return false;
+            swapInOrder(tasks, i, k);
+
+            // heads change from the operations whose machine predecessor changed
+            heap.setIncreasing(true);
+            heap.push(v);
+            heap.push(u);
+            if(after != -1)
+                heap.push(after);
+            propagateHeads();
+
+            // tails change from the operations whose machine successor changed
+            heap.setIncreasing(false);
+            heap.push(u);
+            heap.push(v);
+            if(before != -1)
+                heap.push(before);
+            propagateTails();
+        } else {
+            swapInOrder(tasks, i, k);
+            if(!graph.load(order)) {
+                swapInOrder(tasks, i, k);
+                boolean reloaded = graph.load(order);
+                assert reloaded;
+                return false;
+            }
+            recomputeAll();
+        }
+        return true;
+    }
+
+    /** Moves the task at index `from` of the machine to index `to`, shifting the tasks in between, in both the
+     * resource order and the heads and tails.
+     * Returns false and leaves everything unchanged if the move would create a cycle. */
+    public boolean insert(int machine, int from, int to) {
+        if(from == to)
+            return true;
+        Task[] tasks = order.tasksByMachine[machine];
+        int u = instance.op(tasks[from].job, tasks[from].task);
+        int v = instance.op(tasks[to].job, tasks[to].task);
+        int oldPrev = graph.machinePrev(u);
+        int oldNext = graph.machineNext(u);
+
+        boolean moved = from < to ? graph.moveAfter(u, v) : graph.moveBefore(u, v);
+        if(!moved)
+            return false;
+        Task moving = tasks[from];
+        if(from < to)
+            System.arraycopy(tasks, from + 1, tasks, from, to - from);
+        else
+            System.arraycopy(tasks, to, tasks, to + 1, from - to);
+        tasks[to] = moving;
+
+        // heads change from the operations whose machine predecessor changed
+        heap.setIncreasing(true);
+        heap.push(u);
+        if(oldNext != -1)
+            heap.push(oldNext);
+        if(graph.machineNext(u) != -1)
+            heap.push(graph.machineNext(u));
+        propagateHeads();
+
+        // tails change from the operations whose machine successor changed
+        heap.setIncreasing(false);
+        heap.push(u);
+        if(oldPrev != -1)
+            heap.push(oldPrev);
+        if(graph.machinePrev(u) != -1)
+            heap.push(graph.machinePrev(u));
+        propagateTails();
+        return true;
+    }
+
+    /** Sufficient condition, based on the current heads and tails, for `insert(machine, from, to)` not to create a cycle
+     * (Balas and Vazacopoulos). It may reject a few feasible moves but never accepts an infeasible one.
+     *
+     * Moving u right after v creates a cycle only if there is a path from the job successor of u to v, which would
+     * imply tail(js(u)) >= duration(v) + tail(v). Symmetrically for moving u right before v with the job predecessor of u. */
+    public boolean insertionIsAcyclic(int machine, int from, int to) {
+        Task[] tasks = order.tasksByMachine[machine];
+        int u = instance.op(tasks[from].job, tasks[from].task);
+        int v = instance.op(tasks[to].job, tasks[to].task);
+        if(from < to) {
+            int js = graph.jobNext[u];
+            return js == -1 || tail[js] < instance.duration(v) + tail[v];
+        } else {
+            int jp = graph.jobPrev[u];
+            return jp == -1 || head[jp] < head[v] + instance.duration(v);
+        }
+    }
+
+    private static void swapInOrder(Task[] tasks, int i, int k) {
+        Task tmp = tasks[i];
+        tasks[i] = tasks[k];
+        tasks[k] = tmp;
+    }
+
+    /** Returns a critical path of the current solution, built the same way as `Schedule.criticalPath`. */
+    public List<Task> criticalPath() {
+        int makespan = makespan();
+        // task that finishes last, on the job with the smallest index
+        int cur = -1;
+        for(int j = 0 ; j < instance.numJobs && cur == -1 ; j++) {
+            int last = instance.op(j, instance.numTasks - 1);
+            if(head[last] + instance.duration(last) == makespan)
+                cur = last;
+        }
+
+        LinkedList<Task> path = new LinkedList<>();
+        path.addFirst(new Task(instance.jobOf(cur), instance.taskOf(cur)));
+        while(head[cur] != 0) {
+            // the predecessor delaying the current task, on its job if possible
+            int pred = graph.jobPrev[cur];
+            if(pred == -1 || head[pred] + instance.duration(pred) != head[cur])
+                pred = graph.machinePrev(cur);
+            assert pred != -1 && head[pred] + instance.duration(pred) == head[cur];
+            cur = pred;
+            path.addFirst(new Task(instance.jobOf(cur), instance.taskOf(cur)));
+        }
+        return path;
+    }
+
+    private void recomputeAll() {
+        for(int pos = 0 ; pos < instance.numOps ; pos++)
+            head[graph.opAt(pos)] = computeHead(graph.opAt(pos));
+        for(int pos = instance.numOps - 1 ; pos >= 0 ; pos--)
+            tail[graph.opAt(pos)] = computeTail(graph.opAt(pos));
+    }
+
+    private int computeHead(int op) {
+        int h = 0;
+        int p = graph.jobPrev[op];
+        if(p != -1)
+            h = head[p] + instance.duration(p);
+        p = graph.machinePrev(op);
+        if(p != -1)
+            h = Math.max(h, head[p] + instance.duration(p));
+        return h;
+    }
+
+    private int computeTail(int op) {
+        int q = 0;
+        int s = graph.jobNext[op];
+        if(s != -1)
+            q = tail[s] + instance.duration(s);
+        s = graph.machineNext(op);
+        if(s != -1)
+            q = Math.max(q, tail[s] + instance.duration(s));
+        return q;
+    }
+
+    /** Visits the operations of the heap by increasing position, pushing successors of the ones whose head changed. */
+    private void propagateHeads() {
+        while(!heap.isEmpty()) {
+            int op = heap.pop();
+            int h = computeHead(op);
+            if(h != head[op]) {
+                head[op] = h;
+                if(graph.jobNext[op] != -1)
+                    heap.push(graph.jobNext[op]);
+                if(graph.machineNext(op) != -1)
+                    heap.push(graph.machineNext(op));
+            }
+        }
+    }
+
+    /** Visits the operations of the heap by decreasing position, pushing predecessors of the ones whose tail changed. */
+    private void propagateTails() {
+        while(!heap.isEmpty()) {
+            int op = heap.pop();
+            int q = computeTail(op);
+            if(q != tail[op]) {
+                tail[op] = q;
+                if(graph.jobPrev[op] != -1)
+                    heap.push(graph.jobPrev[op]);
+                if(graph.machinePrev(op) != -1)
+                    heap.push(graph.machinePrev(op));
+            }
+        }
+    }
+
+    /** Binary heap of operations, ordered by their position in the topological order of the graph
+     * (smallest first for heads, largest first for tails). An operation is contained at most once. */
+    private static final class PositionHeap {
+        private final DisjunctiveGraph graph;
+        private final boolean[] contained;
+        private final int[] ops;
+        private int size = 0;
+        // +1 to pop the smallest position first, -1 to pop the largest first
+        private int sign = 1;
+
+        PositionHeap(DisjunctiveGraph graph) {
+            this.graph = graph;
+            this.contained = new boolean[graph.instance.numOps];
+            this.ops = new int[graph.instance.numOps];
+        }
+
+        /** Sets the order in which operations are popped. The heap must be empty. */
+        void setIncreasing(boolean increasing) {
+            assert size == 0;
+            sign = increasing ? 1 : -1;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int key(int op) {
+            return sign * graph.positionOf(op);
+        }
+
+        void push(int op) {
+            if(contained[op])
+                return;
+            contained[op] = true;
+            int i = size++;
+            int key = key(op);
+            while(i > 0) {
+                int parent = (i - 1) / 2;
+                if(key(ops[parent]) <= key)
+                    break;
+                ops[i] = ops[parent];
+                i = parent;
+            }
+            ops[i] = op;
+        }
+
+        int pop() {
+            int top = ops[0];
+            contained[top] = false;
+            int last = ops[--size];
+            int key = key(last);
+            int i = 0;
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= size)
+                    break;
+                if(child + 1 < size && key(ops[child + 1]) < key(ops[child]))
+                    child++;
+                if(key(ops[child]) >= key)
+                    break;
+                ops[i] = ops[child];
+                i = child;
+            }
+            if(size > 0)
+                ops[i] = last;
+            return top;
+        }
+    }
+}
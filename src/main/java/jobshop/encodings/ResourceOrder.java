@@ -4,9 +4,8 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
-import java.util.Comparator;
-import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.Arrays;
+
 
 public class ResourceOrder extends Encoding {
 
@@ -35,28 +34,36 @@ public class ResourceOrder extends Encoding {
         super(schedule.pb);
         Instance pb = schedule.pb;
 
-        this.tasksByMachine = new Task[pb.numMachines][];
+        this.tasksByMachine = new Task[pb.numMachines][pb.numJobs];
         this.nextFreeSlot = new int[instance.numMachines];
 
-        for(int m = 0 ; m<schedule.pb.numMachines ; m++) {
-            final int machine = m;
-
-            // for thi machine, find all tasks that are executed on it and sort them by their start time
-            tasksByMachine[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
+        // all tasks sorted by start time, appended to the order of their machine
+        for(int op : schedule.opsByStartTime()) {
+            int machine = pb.machine(op);
+            tasksByMachine[machine][nextFreeSlot[machine]++] = new Task(pb.jobOf(op), pb.taskOf(op));
+        }
+    }
 
-            // indicate that all tasks have been initialized for machine m
-            nextFreeSlot[m] = instance.numJobs;
+    /** Builds the resource order corresponding to a job numbers representation, without building the schedule :
+     * tasks appear on each machine in the order in which they appear in the job numbers. */
+    public static ResourceOrder fromJobNumbers(JobNumbers numbers) {
+        Instance instance = numbers.instance;
+        ResourceOrder order = new ResourceOrder(instance);
+
+        // for each job, the next task to be placed
+        int[] nextTask = new int[instance.numJobs];
+        for(int job : numbers.jobs) {
+            int task = nextTask[job]++;
+            int machine = instance.machine(job, task);
+            order.tasksByMachine[machine][order.nextFreeSlot[machine]++] = new Task(job, task);
         }
+        return order;
     }
 
     @Override
     public Schedule toSchedule() {
-        // indicate for each task that have been scheduled, its start time
-        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        // indicate for each task that have been scheduled, its start time (indexed by operation id)
+        int[] startTimes = new int[instance.numOps];
 
         // for each job, how many tasks have been scheduled (0 initially)
         int[] nextToScheduleByJob = new int[instance.numJobs];
@@ -68,47 +75,110 @@ public class ResourceOrder extends Encoding {
         int[] releaseTimeOfMachine = new int[instance.numMachines];
 
 
+        int remaining = instance.numOps;
+
         // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
+        while(remaining > 0) {
+            boolean progress = false;
 
-            // selects a task that has noun scheduled predecessor on its job and machine :
+            // on each machine, schedule tasks as long as the next one has no unscheduled predecessor :
             //  - it is the next to be schedule on a machine
             //  - it is the next to be scheduled on its job
-            // if there is no such task, we have cyclic dependency and the solution is invalid
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                    .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                    .mapToObj(m -> this.tasksByMachine[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                    .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                    .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we found a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t.job, t.task);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                startTimes[t.job][t.task] = est;
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
-            } else {
+            // if no task can be scheduled on any machine, we have cyclic dependency and the solution is invalid
+            for(int machine = 0 ; machine < instance.numMachines ; machine++) {
+                while(nextToScheduleByMachine[machine] < instance.numJobs) {
+                    Task t = this.tasksByMachine[machine][nextToScheduleByMachine[machine]];
+                    if(t.task != nextToScheduleByJob[t.job])
+                        break;
+                    int op = instance.op(t.job, t.task);
+
+                    // compute the earliest start time (est) of the task
+                    int est = t.task == 0 ? 0 : startTimes[op - 1] + instance.duration(op - 1);
+                    est = Math.max(est, releaseTimeOfMachine[machine]);
+                    startTimes[op] = est;
+
+                    // mark the task as scheduled
+                    nextToScheduleByJob[t.job]++;
+                    nextToScheduleByMachine[machine]++;
+                    // increase the release time of the machine
+                    releaseTimeOfMachine[machine] = est + instance.duration(op);
+                    remaining--;
+                    progress = true;
+                }
+            }
+
+            if(!progress) {
                 // no tasks are schedulable, there is no solution for this resource ordering
                 return null;
             }
         }
         // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        return Schedule.wrap(instance, startTimes);
+    }
+
+    /** Reusable buffers for `evaluateMakespan`.
+     * A scratch is bound to one instance and must not be shared between threads. */
+    public static final class Scratch {
+        final Instance instance;
+        // for each job, the first task that has not yet been scheduled
+        final int[] nextByJob;
+        // for each job, the end time of its last scheduled task
+        final int[] jobEnd;
+        // for each machine, how many tasks have been scheduled
+        final int[] nextByMachine;
+        // for each machine, the end time of its last scheduled task
+        final int[] machineEnd;
+
+        public Scratch(Instance instance) {
+            this.instance = instance;
+            this.nextByJob = new int[instance.numJobs];
+            this.jobEnd = new int[instance.numJobs];
+            this.nextByMachine = new int[instance.numMachines];
+            this.machineEnd = new int[instance.numMachines];
+        }
+    }
+
+    /** Computes the makespan of the schedule represented by this resource order, without building it and without
+     * allocating. Unlike `toSchedule`, cycles are not detected : the order must be known to be acyclic, e.g. obtained
+     * from an acyclic one by a move that cannot create a cycle. */
+    public int evaluateMakespan(Scratch s) {
+        Arrays.fill(s.nextByJob, 0);
+        Arrays.fill(s.jobEnd, 0);
+        Arrays.fill(s.nextByMachine, 0);
+        Arrays.fill(s.machineEnd, 0);
+
+        int remaining = instance.numOps;
+        while(remaining > 0) {
+            for(int machine = 0 ; machine < instance.numMachines ; machine++) {
+                Task[] tasks = tasksByMachine[machine];
+                int next = s.nextByMachine[machine];
+                int end = s.machineEnd[machine];
+                while(next < instance.numJobs && tasks[next].task == s.nextByJob[tasks[next].job]) {
+                    Task t = tasks[next++];
+                    end = Math.max(end, s.jobEnd[t.job]) + instance.duration(t.job, t.task);
+                    s.jobEnd[t.job] = end;
+                    s.nextByJob[t.job]++;
+                    remaining--;
+                }
+                s.nextByMachine[machine] = next;
+                s.machineEnd[machine] = end;
+            }
+        }
+
+        int makespan = 0;
+        for(int end : s.jobEnd)
+            makespan = Math.max(makespan, end);
+        return makespan;
     }
 
-    /** Creates an exact copy of this resource order. */
+    /** Creates an exact copy of this resource order. Tasks are immutable and shared with the copy. */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        ResourceOrder copy = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            System.arraycopy(tasksByMachine[m], 0, copy.tasksByMachine[m], 0, instance.numJobs);
+            copy.nextFreeSlot[m] = nextFreeSlot[m];
+        }
+        return copy;
     }
 
     @Override
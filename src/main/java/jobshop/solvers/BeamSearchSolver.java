@@ -0,0 +1,240 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+/** Beam search over partial resource orders.
+ *
+ * A partial resource order is built by appending tasks at the end of their machine, as in the Giffler-Thompson
+ * algorithm : the children of a partial solution are obtained by scheduling one task of its conflict set.
+ * At each step, only the `width` best children of the whole beam are kept, scored by a lower bound of the makespan
+ * of their completions : the partial makespan, extended with the remaining work of each job and of each machine
+ * (with the heads and tails given by the jobs). Ties are broken by the idle time inserted so far.
+ * A width of 1 is a greedy construction, larger widths trade time for quality.
+ *
+ * States only copy a few per-job and per-machine counters : the appended tasks are stored as a linked list of choices
+ * shared with the parent, from which the resource order is rebuilt at the end. Children of the beam are generated in
+ * parallel, the result does not depend on the number of threads.
+ */
+public class BeamSearchSolver implements Solver {
+
+    private final int width;
+    private final int numThreads;
+
+    public BeamSearchSolver(int width, int numThreads) {
+        if(width < 1 || numThreads < 1)
+            throw new IllegalArgumentException("Width and number of threads must be positive");
+        this.width = width;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        // remaining work of each job from each of its tasks
+        int[] jobRemaining = new int[instance.numOps];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int sum = 0;
+            for(int t = instance.numTasks - 1 ; t >= 0 ; t--) {
+                sum += instance.duration(j, t);
+                jobRemaining[instance.op(j, t)] = sum;
+            }
+        }
+
+        List<State> beam = new ArrayList<>();
+        beam.add(State.initial(instance));
+        ExecutorService pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        try {
+            for(int step = 0 ; step < instance.numOps ; step++) {
+                List<State> children = expand(beam, instance, jobRemaining, pool);
+                // once the deadline is met, the best partial solution is completed greedily
+                int keep = System.currentTimeMillis() < deadline ? width : 1;
+                // stable sort : complete ties keep the generation order
+                children.sort((a, b) -> a.score != b.score ? Long.compare(a.score, b.score) : Long.compare(a.idle, b.idle));
+                beam = new ArrayList<>(children.subList(0, Math.min(keep, children.size())));
+            }
+        } finally {
+            if(pool != null)
+                pool.shutdownNow();
+        }
+
+        ResourceOrder order = beam.get(0).toResourceOrder(instance);
+        int makespan = beam.get(0).makespan();
+        Result.ExitCause cause = makespan == LowerBound.of(instance) ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
+    }
+
+    /** Children of all states of the beam, in the order of the beam. */
+    private List<State> expand(List<State> beam, Instance instance, int[] jobRemaining, ExecutorService pool) {
+        List<State> children = new ArrayList<>();
+        if(pool == null || beam.size() == 1) {
+            for(State state : beam)
+                state.expand(instance, jobRemaining, children);
+            return children;
+        }
+        // one contiguous chunk of the beam per thread
+        int chunk = (beam.size() + numThreads - 1) / numThreads;
+        List<Future<List<State>>> futures = new ArrayList<>();
+        for(int from = 0 ; from < beam.size() ; from += chunk) {
+            List<State> part = beam.subList(from, Math.min(beam.size(), from + chunk));
+            futures.add(pool.submit(() -> {
+                List<State> result = new ArrayList<>();
+                for(State state : part)
+                    state.expand(instance, jobRemaining, result);
+                return result;
+            }));
+        }
+        try {
+            for(Future<List<State>> future : futures)
+                children.addAll(future.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        return children;
+    }
+
+    /** Choice of a job in a partial solution, linked to the choices made before it. */
+    private static final class Choice {
+        final Choice previous;
+        final int job;
+
+        Choice(Choice previous, int job) {
+            this.previous = previous;
+            this.job = job;
+        }
+    }
+
+    /** A partial resource order, with the times at which each job and each machine become available. */
+    private static final class State {
+        final Choice last;
+        final int[] nextTask;
+        final int[] jobReady;
+        final int[] machineReady;
+        /** Total duration of the tasks not scheduled yet on each machine. */
+        final int[] machineRemaining;
+        /** Lower bound of the makespan of any completion of this state. */
+        long score;
+        /** Total idle time inserted on the machines, to break ties between scores. */
+        long idle;
+
+        private State(Choice last, int[] nextTask, int[] jobReady, int[] machineReady, int[] machineRemaining) {
+            this.last = last;
+            this.nextTask = nextTask;
+            this.jobReady = jobReady;
+            this.machineReady = machineReady;
+            this.machineRemaining = machineRemaining;
+        }
+
+        static State initial(Instance instance) {
+            int[] machineRemaining = new int[instance.numMachines];
+            for(int op = 0 ; op < instance.numOps ; op++)
+                machineRemaining[instance.machine(op)] += instance.duration(op);
+            return new State(null, new int[instance.numJobs], new int[instance.numJobs], new int[instance.numMachines], machineRemaining);
+        }
+
+        int makespan() {
+            int makespan = 0;
+            for(int ready : machineReady)
+                makespan = Math.max(makespan, ready);
+            return makespan;
+        }
+
+        /** Appends to `children` the states obtained by scheduling each task of the Giffler-Thompson conflict set. */
+        void expand(Instance instance, int[] jobRemaining, List<State> children) {
+            int machine = -1;
+            int earliestJob = -1;
+            int earliestCompletion = Integer.MAX_VALUE;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] == instance.numTasks)
+                    continue;
+                int m = instance.machine(j, nextTask[j]);
+                int completion = Math.max(jobReady[j], machineReady[m]) + instance.duration(j, nextTask[j]);
+                if(completion < earliestCompletion) {
+                    earliestCompletion = completion;
+                    earliestJob = j;
+                    machine = m;
+                }
+            }
+            // the task reaching the earliest completion is always in the conflict set, even with a null duration
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] == instance.numTasks || instance.machine(j, nextTask[j]) != machine)
+                    continue;
+                if(Math.max(jobReady[j], machineReady[machine]) < earliestCompletion || j == earliestJob)
+                    children.add(child(instance, jobRemaining, j, machine));
+            }
+        }
+
+        private State child(Instance instance, int[] jobRemaining, int job, int machine) {
+            int task = nextTask[job];
+            int duration = instance.duration(job, task);
+            int start = Math.max(jobReady[job], machineReady[machine]);
+            int end = start + duration;
+
+            State child = new State(new Choice(last, job), nextTask.clone(), jobReady.clone(), machineReady.clone(), machineRemaining.clone());
+            child.nextTask[job]++;
+            child.jobReady[job] = end;
+            child.machineReady[machine] = end;
+            child.machineRemaining[machine] -= duration;
+
+            // each remaining task cannot start before the rest of its job before it, nor end later than the rest of
+            // its job after it : on each machine, the remaining load starts after the smallest head and ends before
+            // the smallest tail
+            int[] minHead = new int[instance.numMachines];
+            int[] minTail = new int[instance.numMachines];
+            Arrays.fill(minHead, Integer.MAX_VALUE);
+            Arrays.fill(minTail, Integer.MAX_VALUE);
+            long bound = 0;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(child.nextTask[j] == instance.numTasks) {
+                    bound = Math.max(bound, child.jobReady[j]);
+                    continue;
+                }
+                int first = instance.op(j, child.nextTask[j]);
+                int ready = Math.max(child.jobReady[j], child.machineReady[instance.machine(first)]);
+                bound = Math.max(bound, ready + jobRemaining[first]);
+                for(int op = first ; op != -1 ; op = instance.nextInJob(op)) {
+                    int m = instance.machine(op);
+                    minHead[m] = Math.min(minHead[m], ready + jobRemaining[first] - jobRemaining[op]);
+                    minTail[m] = Math.min(minTail[m], jobRemaining[op] - instance.duration(op));
+                }
+            }
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                if(child.machineRemaining[m] > 0)
+                    bound = Math.max(bound, Math.max(child.machineReady[m], minHead[m]) + child.machineRemaining[m] + minTail[m]);
+            }
+            child.score = bound;
+            child.idle = idle + start - machineReady[machine];
+            return child;
+        }
+
+        /** Replays the choices leading to this state. */
+        ResourceOrder toResourceOrder(Instance instance) {
+            int count = 0;
+            for(Choice c = last ; c != null ; c = c.previous)
+                count++;
+            int[] jobs = new int[count];
+            for(Choice c = last ; c != null ; c = c.previous)
+                jobs[--count] = c.job;
+
+            ResourceOrder order = new ResourceOrder(instance);
+            int[] next = new int[instance.numJobs];
+            for(int job : jobs) {
+                int task = next[job]++;
+                int m = instance.machine(job, task);
+                order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(job, task);
+            }
+            return order;
+        }
+    }
+}
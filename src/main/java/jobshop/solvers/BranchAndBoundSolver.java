@@ -0,0 +1,290 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+
+/** Exact solver for small and medium instances, proving optimality when the search completes before the deadline.
+ *
+ * Nodes are partial selections of the disjunctive graph : for each machine, a set of fixed precedences between its
+ * tasks (kept transitively closed). At each node :
+ *  - heads and tails are computed as longest paths over the job arcs and fixed machine arcs,
+ *  - immediate selections fix every pair whose other order cannot beat the upper bound, until a fixpoint,
+ *  - the node is pruned if the largest one-machine bound (Jackson's preemptive schedule with heads and tails) is
+ *    not better than the upper bound.
+ * Branching is done on the most constrained unfixed pair, trying its most promising order first.
+ * The upper bound is seeded with the result of a taboo search.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    private final Solver upperBoundSolver;
+
+    public BranchAndBoundSolver() {
+        this(new TabooSolver(50, 10));
+    }
+
+    /** @param upperBoundSolver solver whose result is used as the initial upper bound */
+    public BranchAndBoundSolver(Solver upperBoundSolver) {
+        this.upperBoundSolver = upperBoundSolver;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        Search search = new Search(instance, deadline);
+
+        Schedule initial = upperBoundSolver.solve(instance, deadline).schedule;
+        search.best = initial;
+        search.upperBound = initial.makespan();
+        if(search.upperBound == LowerBound.of(instance))
+            return new Result(instance, initial, Result.ExitCause.ProvedOptimal);
+
+        search.branch(new Node(instance));
+
+        Result.ExitCause cause = search.aborted ? Result.ExitCause.Timeout : Result.ExitCause.ProvedOptimal;
+        return new Result(instance, search.best, cause);
+    }
+
+    /** A partial selection : fixed precedences between the tasks of each machine, with the heads and tails they imply. */
+    static final class Node {
+        /** before[m][a * numJobs + b] is true if the task of job a on machine m precedes the one of job b */
+        final boolean[][] before;
+        final int[] head;
+        final int[] tail;
+
+        Node(Instance instance) {
+            before = new boolean[instance.numMachines][instance.numJobs * instance.numJobs];
+            head = new int[instance.numOps];
+            tail = new int[instance.numOps];
+        }
+
+        Node(Node other) {
+            before = new boolean[other.before.length][];
+            for(int m = 0 ; m < before.length ; m++)
+                before[m] = other.before[m].clone();
+            head = other.head.clone();
+            tail = other.tail.clone();
+        }
+    }
+
+    /** State of one run of the branch and bound. */
+    static final class Search {
+        final Instance instance;
+        final long deadline;
+        final int numJobs;
+        /** opOn[m][j] is the operation of job j executed on machine m */
+        final int[][] opOn;
+
+        Schedule best;
+        int upperBound;
+        boolean aborted = false;
+
+        // buffers of the longest paths computation
+        private final int[] inDegree;
+        private final int[] queue;
+
+        Search(Instance instance, long deadline) {
+            this.instance = instance;
+            this.deadline = deadline;
+            this.numJobs = instance.numJobs;
+            this.opOn = new int[instance.numMachines][numJobs];
+            for(int j = 0 ; j < numJobs ; j++)
+                for(int t = 0 ; t < instance.numTasks ; t++)
+                    opOn[instance.machine(j, t)][j] = instance.op(j, t);
+            this.inDegree = new int[instance.numOps];
+            this.queue = new int[instance.numOps];
+        }
+
+        void branch(Node node) {
+            if(aborted || System.currentTimeMillis() > deadline) {
+                aborted = true;
+                return;
+            }
+            if(!propagate(node))
+                return;
+
+            // most constrained unfixed pair : the one whose best order has the largest bound
+            int bestMachine = -1, bestA = -1, bestB = -1;
+            int bestBound = -1;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                boolean[] before = node.before[m];
+                for(int a = 0 ; a < numJobs ; a++) {
+                    for(int b = a + 1 ; b < numJobs ; b++) {
+                        if(before[a * numJobs + b] || before[b * numJobs + a])
+                            continue;
+                        int ab = pairBound(node, opOn[m][a], opOn[m][b]);
+                        int ba = pairBound(node, opOn[m][b], opOn[m][a]);
+                        int bound = Math.min(ab, ba);
+                        if(bound > bestBound) {
+                            bestBound = bound;
+                            bestMachine = m;
+                            // most promising order first
+                            bestA = ab <= ba ? a : b;
+                            bestB = ab <= ba ? b : a;
+                        }
+                    }
+                }
+            }
+
+            if(bestMachine == -1) {
+                // complete selection : heads are the start times of a schedule better than the upper bound
+                int makespan = 0;
+                for(int op = 0 ; op < instance.numOps ; op++)
+                    makespan = Math.max(makespan, node.head[op] + instance.duration(op));
+                if(makespan < upperBound) {
+                    upperBound = makespan;
+                    best = Schedule.wrap(instance, node.head.clone());
+                }
+                return;
+            }
+
+            Node first = new Node(node);
+            if(fix(first, bestMachine, bestA, bestB))
+                branch(first);
+            Node second = new Node(node);
+            if(fix(second, bestMachine, bestB, bestA))
+                branch(second);
+        }
+
+        /** Length of the longest path through op a then op b if a is executed right before b. */
+        private int pairBound(Node node, int a, int b) {
+            return node.head[a] + instance.duration(a) + instance.duration(b) + node.tail[b];
+        }
+
+        /** Fixes job a before job b on machine m, with transitive closure. Returns false if b already precedes a. */
+        private boolean fix(Node node, int m, int a, int b) {
+            boolean[] before = node.before[m];
+            if(before[b * numJobs + a])
+                return false;
+            if(before[a * numJobs + b])
+                return true;
+            // every x before (or equal to) a is now before every y after (or equal to) b
+            for(int x = 0 ; x < numJobs ; x++) {
+                if(x != a && !before[x * numJobs + a])
+                    continue;
+                for(int y = 0 ; y < numJobs ; y++) {
+                    if(y != b && !before[b * numJobs + y])
+                        continue;
+                    if(x == y || before[y * numJobs + x])
+                        return false;
+                    before[x * numJobs + y] = true;
+                }
+            }
+            return true;
+        }
+
+        /** Computes heads and tails and applies immediate selections until a fixpoint.
+         * Returns false if the node is infeasible or cannot improve on the upper bound. */
+        private boolean propagate(Node node) {
+            boolean changed = true;
+            while(changed) {
+                if(!longestPaths(node))
+                    return false;
+                if(lowerBound(node) >= upperBound)
+                    return false;
+
+                changed = false;
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    boolean[] before = node.before[m];
+                    for(int a = 0 ; a < numJobs ; a++) {
+                        for(int b = a + 1 ; b < numJobs ; b++) {
+                            if(before[a * numJobs + b] || before[b * numJobs + a])
+                                continue;
+                            boolean abPossible = pairBound(node, opOn[m][a], opOn[m][b]) < upperBound;
+                            boolean baPossible = pairBound(node, opOn[m][b], opOn[m][a]) < upperBound;
+                            if(!abPossible && !baPossible)
+                                return false;
+                            if(!abPossible || !baPossible) {
+                                boolean fixed = abPossible ? fix(node, m, a, b) : fix(node, m, b, a);
+                                if(!fixed)
+                                    return false;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Heads and tails as longest paths over the job arcs and the fixed machine arcs.
+         * Returns false if these arcs contain a cycle. */
+        private boolean longestPaths(Node node) {
+            int n = instance.numOps;
+            // heads, in topological order (Kahn)
+            int size = 0;
+            for(int op = 0 ; op < n ; op++) {
+                int m = instance.machine(op);
+                int job = instance.jobOf(op);
+                int degree = instance.prevInJob(op) == -1 ? 0 : 1;
+                for(int x = 0 ; x < numJobs ; x++)
+                    if(node.before[m][x * numJobs + job])
+                        degree++;
+                inDegree[op] = degree;
+                node.head[op] = 0;
+                if(degree == 0)
+                    queue[size++] = op;
+            }
+            for(int i = 0 ; i < size ; i++) {
+                int op = queue[i];
+                int end = node.head[op] + instance.duration(op);
+                int m = instance.machine(op);
+                int job = instance.jobOf(op);
+                int next = instance.nextInJob(op);
+                if(next != -1) {
+                    node.head[next] = Math.max(node.head[next], end);
+                    if(--inDegree[next] == 0)
+                        queue[size++] = next;
+                }
+                for(int y = 0 ; y < numJobs ; y++) {
+                    if(node.before[m][job * numJobs + y]) {
+                        int s = opOn[m][y];
+                        node.head[s] = Math.max(node.head[s], end);
+                        if(--inDegree[s] == 0)
+                            queue[size++] = s;
+                    }
+                }
+            }
+            if(size < n)
+                return false;
+
+            // tails, in reverse topological order
+            for(int i = n - 1 ; i >= 0 ; i--) {
+                int op = queue[i];
+                int m = instance.machine(op);
+                int job = instance.jobOf(op);
+                int q = 0;
+                int next = instance.nextInJob(op);
+                if(next != -1)
+                    q = instance.duration(next) + node.tail[next];
+                for(int y = 0 ; y < numJobs ; y++) {
+                    if(node.before[m][job * numJobs + y]) {
+                        int s = opOn[m][y];
+                        q = Math.max(q, instance.duration(s) + node.tail[s]);
+                    }
+                }
+                node.tail[op] = q;
+            }
+            return true;
+        }
+
+        /** Largest one-machine bound over all machines. */
+        private int lowerBound(Node node) {
+            int bound = 0;
+            int[] r = new int[numJobs];
+            int[] p = new int[numJobs];
+            int[] q = new int[numJobs];
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                for(int j = 0 ; j < numJobs ; j++) {
+                    int op = opOn[m][j];
+                    r[j] = node.head[op];
+                    p[j] = instance.duration(op);
+                    q[j] = node.tail[op];
+                }
+                bound = Math.max(bound, LowerBound.jacksonPreemptive(r, p, q, numJobs));
+            }
+            return bound;
+        }
+    }
+}
@@ -5,12 +5,13 @@ import java.util.Arrays;
 import java.util.List;
 
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
 import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Task;
-import jobshop.solvers.GreedySolver.Priority;
 
 public class DescentSolver implements Solver {
 
@@ -46,6 +47,15 @@ public class DescentSolver implements Solver {
         }
     }
 
+    /** What is known about the feasibility of a swap before applying it, see `evaluate`. */
+    enum Feasibility {
+        /** The swap never creates a cycle (e.g. swap of two adjacent tasks of a block of the critical path).
+         * The resulting order does not need to be checked. */
+        GUARANTEED,
+        /** Nothing is known, the resulting order must be decoded to detect cycles. */
+        UNKNOWN
+    }
+
     /**
      * Represents a swap of two tasks on the same machine in a ResourceOrder encoding.
      *
@@ -68,11 +78,18 @@ public class DescentSolver implements Solver {
         final int t1;
         // index of the other task to be swapped
         final int t2;
+        // whether the swap may create a cycle
+        final Feasibility feasibility;
 
         Swap(int machine, int t1, int t2) {
+            this(machine, t1, t2, Feasibility.UNKNOWN);
+        }
+
+        Swap(int machine, int t1, int t2, Feasibility feasibility) {
             this.machine = machine;
             this.t1 = t1;
             this.t2 = t2;
+            this.feasibility = feasibility;
         }
 
         /** Apply this swap on the given resource order, transforming it into a new solution. */
@@ -83,87 +100,153 @@ public class DescentSolver implements Solver {
         	
  
         }
+
+        /** Apply this swap on the solution described by paths, updating its heads and tails. */
+        public boolean applyOn(LongestPaths paths) {
+            return paths.swap(machine, t1, t2);
+        }
     }
 
 
+    /**
+     * Represents the move of a task to another position on its machine, the tasks in between being shifted.
+     *
+     * Consider the solution in ResourceOrder representation
+     * machine 1 : (0,2) (2,1) (1,1)
+     *
+     * The insertion with : machine = 1, from = 0 and to = 2
+     * results in the order
+     * machine 1 : (2,1) (1,1) (0,2)
+     *
+     * An insertion may create a cycle : `isFeasible` rules it out with the heads and tails of the current solution.
+     */
+    static class Insertion {
+        final int machine;
+        // index of the task to move
+        final int from;
+        // index of the task after the move
+        final int to;
+
+        Insertion(int machine, int from, int to) {
+            this.machine = machine;
+            this.from = from;
+            this.to = to;
+        }
+
+        /** True if the move is guaranteed not to create a cycle in the solution described by paths. */
+        boolean isFeasible(LongestPaths paths) {
+            return paths.insertionIsAcyclic(machine, from, to);
+        }
+
+        /** Apply this insertion on the given resource order, transforming it into a new solution. */
+        public void applyOn(ResourceOrder order) {
+            Task[] tasks = order.tasksByMachine[machine];
+            Task moving = tasks[from];
+            if(from < to)
+                System.arraycopy(tasks, from + 1, tasks, from, to - from);
+            else
+                System.arraycopy(tasks, to, tasks, to + 1, from - to);
+            tasks[to] = moving;
+        }
+
+        /** Apply this insertion on the solution described by paths, updating its heads and tails. */
+        public boolean applyOn(LongestPaths paths) {
+            return paths.insert(machine, from, to);
+        }
+    }
+
     public Result solve(Instance instance, long deadline) {
 
-        Schedule sol_ini = new GreedySolver(Priority.EST_SPT).solve(instance, deadline).schedule;  
+        Schedule sol_ini = new ShiftingBottleneckSolver().solve(instance, deadline).schedule;  
        
-        ResourceOrder best_order = new ResourceOrder(sol_ini);
-        
-                
-       // int debut_makespan = sol_ini.makespan(); 
-       // System.out.println("debut");
-        //System.out.println(debut_makespan);
-        
-        boolean found_best = true;
+        // heads and tails of the solution, updated incrementally when a swap is applied on it
+        LongestPaths best_paths = new LongestPaths(new ResourceOrder(sol_ini));
         // on continue a chercher tant que la solution s'amliore
-        while (found_best ) {
-        	
-        	if(System.currentTimeMillis() > deadline) {
-    			return new Result(instance, best_order.toSchedule() , Result.ExitCause.Timeout);
-        	}else {
-        		     
-        		found_best = false;
-            	List<Block> block_list = blocksOfCriticalPath(best_order);
-            	
-            	//System.out.print("\n" + block_list + "\n");
-       	
-            	int makespan = best_order.toSchedule().makespan();
-            	ResourceOrder best_local = best_order;
-            	int best_makespan = Integer.MAX_VALUE ; 
-
-                for (int i=0 ; i<block_list.size(); i++) {
-                	
-                	Block block = block_list.get(i);
-                	
-                	List<Swap> neighbors_list = neighbors(block);
-                	
-                	
-                	for (int n = 0; n< neighbors_list.size(); n++) {
-                    	
-                		ResourceOrder test_order = best_order.copy();
-                		
-                		Swap swap = neighbors_list.get(n);
-                		swap.applyOn(test_order);
-
-                		Schedule new_sched = test_order.toSchedule();
-                		                    	                		
-                		if(new_sched != null && new_sched.isValid()) {
-                			
-                			int new_makespan = new_sched.makespan();
-                			
-                			//si le makespan est meilleur on update la solution
-                			if(new_makespan < best_makespan)  {
-                				best_makespan = new_makespan;
-                				best_local = test_order.copy();
-                				found_best = true;
-                				//System.out.println("better");
-                		        //System.out.println(new_makespan);
-                			}
-                		            			            			
-                		}
-        			
-                	}
-               }
-                
-                if (best_makespan < makespan) {
-                	best_order = best_local.copy();
-                }
-               
-        	
-        	}
-        }
-        
-	    return new Result(instance, sol_ini, Result.ExitCause.Timeout);
-	    
+        descend(best_paths, deadline, Integer.MAX_VALUE);
+
+        // the improvements are in best_paths, not in sol_ini
+        Result.ExitCause cause;
+        if(best_paths.makespan() == LowerBound.of(instance))
+        	cause = Result.ExitCause.ProvedOptimal;
+        else if(System.currentTimeMillis() >= deadline)
+        	cause = Result.ExitCause.Timeout;
+        else
+        	cause = Result.ExitCause.Blocked; // local optimum
+        return new Result(instance, best_paths.toSchedule(), cause);
+    }
+
+    /** Makespan of the neighbor obtained by applying the swap on the order, -1 if the neighbor contains a cycle.
+     * Swaps guaranteed to be feasible are applied in place, evaluated without cycle detection nor allocation, and
+     * undone ; the others are decoded from a copy of the order, with cycle detection. */
+    static int evaluate(Swap swap, ResourceOrder order, ResourceOrder.Scratch scratch) {
+    	if(swap.feasibility == Feasibility.GUARANTEED) {
+    		swap.applyOn(order);
+    		int makespan = order.evaluateMakespan(scratch);
+    		swap.applyOn(order);
+    		assert makespan == decode(swap, order);
+    		return makespan;
+    	}
+    	return decode(swap, order);
+    }
+
+    /** Makespan of the neighbor decoded from a copy of the order, with cycle detection, -1 if it contains a cycle. */
+    private static int decode(Swap swap, ResourceOrder order) {
+    	ResourceOrder neighbor = order.copy();
+    	swap.applyOn(neighbor);
+    	Schedule schedule = neighbor.toSchedule();
+    	if(schedule == null)
+    		return -1;
+    	// a decoded schedule is valid by construction : only checked with assertions enabled
+    	assert schedule.isValid();
+    	return schedule.makespan();
+    }
+
+    /** Steepest descent on the swaps of the critical blocks, applied incrementally on the given solution.
+     * Stops at a local optimum, at the deadline or after maxSteps improving moves.
+     * Returns the number of improving moves applied. */
+    static int descend(LongestPaths paths, long deadline, int maxSteps) {
+    	return descend(paths, deadline, maxSteps, null);
+    }
+
+    /** Same as `descend(paths, deadline, maxSteps)`, also appending the applied swaps to `journal` if it is not null,
+     * so that they can be undone by applying them again in reverse order. */
+    static int descend(LongestPaths paths, long deadline, int maxSteps, List<Swap> journal) {
+    	ResourceOrder.Scratch scratch = new ResourceOrder.Scratch(paths.order.instance);
+    	int steps = 0;
+    	int makespan = paths.makespan();
+    	while(steps < maxSteps && System.currentTimeMillis() < deadline) {
+    		Swap best_swap = null;
+    		// only strictly improving neighbors are considered : stops at the first local optimum
+    		int best_makespan = makespan;
+    		for(Block block : blocksOfCriticalPath(paths.order, paths.criticalPath())) {
+    			for(Swap swap : neighbors(block)) {
+    				// neighbors are evaluated on the order alone, only the chosen swap updates the heads and tails
+    				int new_makespan = evaluate(swap, paths.order, scratch);
+    				if(new_makespan >= 0 && new_makespan < best_makespan) {
+    					best_makespan = new_makespan;
+    					best_swap = swap;
+    				}
+    			}
+    		}
+    		if(best_swap == null)
+    			break;
+    		best_swap.applyOn(paths);
+    		if(journal != null)
+    			journal.add(best_swap);
+    		makespan = best_makespan;
+    		steps++;
+    	}
+    	return steps;
     }
 
     /** Returns a list of all blocks of the critical path. */
     static public List<Block> blocksOfCriticalPath(ResourceOrder order) {
+    	return blocksOfCriticalPath(order, order.toSchedule().criticalPath());
+    }
+
+    /** Returns a list of all blocks of the given critical path of the resource order. */
+    static public List<Block> blocksOfCriticalPath(ResourceOrder order, List<Task> path) {
     	
-	  List<Task> path = order.toSchedule().criticalPath();
 	  List<Block> blocks = new ArrayList<Block>();
 	  
 	  //ini
@@ -189,22 +272,41 @@ public class DescentSolver implements Solver {
 			  last = first;
 			  }
 		  }
+	  // the path may end with a block
+	  if(last != first) {
+		  blocks.add(new Block(current_machine,first,last));
+	  }
 	
 	  return blocks;
 
     }
 
+    /** For a given block, return the moves of its first (resp. last) task to every other position of the block.
+     * Moves to an adjacent position are swaps, already returned by `neighbors`.
+     * These moves are not always feasible and must be filtered with `Insertion.isFeasible`. */
+    static public List<Insertion> insertions(Block block) {
+	  List<Insertion> moves = new ArrayList<Insertion>();
+	  for(int i = block.firstTask + 2 ; i <= block.lastTask ; i++) {
+		  moves.add(new Insertion(block.machine, block.firstTask, i));
+	  }
+	  for(int i = block.firstTask ; i <= block.lastTask - 2 ; i++) {
+		  moves.add(new Insertion(block.machine, block.lastTask, i));
+	  }
+	  return moves;
+    }
+
     /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
     static public List<Swap> neighbors(Block block) {
     			
 	  List<Swap> swaps = new ArrayList<Swap>();
 	  int size_block = block.lastTask - block.firstTask;
 	  
+	  // swapping two adjacent tasks of a critical block never creates a cycle
 	  if(size_block == 1) {
-		  swaps.add(new Swap(block.machine,block.firstTask, block.lastTask)); 
+		  swaps.add(new Swap(block.machine,block.firstTask, block.lastTask, Feasibility.GUARANTEED)); 
 	  }else {
-		 swaps.add(new Swap(block.machine,block.firstTask, block.firstTask +1)); 
-		  swaps.add(new Swap(block.machine,block.lastTask -1 , block.lastTask)); 
+		 swaps.add(new Swap(block.machine,block.firstTask, block.firstTask +1, Feasibility.GUARANTEED)); 
+		  swaps.add(new Swap(block.machine,block.lastTask -1 , block.lastTask, Feasibility.GUARANTEED)); 
 	  }
 	  return swaps;
 		
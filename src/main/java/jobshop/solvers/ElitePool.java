@@ -0,0 +1,100 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+/** Bounded pool of good and diverse solutions.
+ *
+ * The distance between two resource orders is the number of pairs of tasks executed in a different order on their
+ * machine. A solution is rejected if it is already in the pool. When the pool is full, a new solution must be better
+ * than the worst one and replaces, among the solutions that are not better than it, the closest one : good solutions
+ * enter the pool without letting one region of the search space take it over.
+ *
+ * Solutions are copied when they enter the pool and when they are read. All methods are thread safe.
+ */
+public class ElitePool {
+
+    private final int capacity;
+    private final List<ResourceOrder> solutions = new ArrayList<>();
+    private final List<Integer> makespans = new ArrayList<>();
+
+    public ElitePool(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /** Number of pairs of tasks of the same machine executed in a different order in the two solutions. */
+    public static int distance(ResourceOrder a, ResourceOrder b) {
+        Instance instance = a.instance;
+        int[] position = new int[instance.numOps];
+        int[] sequence = new int[instance.numJobs];
+        int distance = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                position[instance.op(b.tasksByMachine[m][i].job, b.tasksByMachine[m][i].task)] = i;
+            // positions in b of the tasks in the order of a : the distance is its number of inversions
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                sequence[i] = position[instance.op(a.tasksByMachine[m][i].job, a.tasksByMachine[m][i].task)];
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                for(int k = i + 1 ; k < instance.numJobs ; k++)
+                    if(sequence[i] > sequence[k])
+                        distance++;
+        }
+        return distance;
+    }
+
+    /** Offers a solution to the pool. Returns true if it was added. */
+    public synchronized boolean offer(ResourceOrder order, int makespan) {
+        int[] distances = new int[solutions.size()];
+        for(int i = 0 ; i < solutions.size() ; i++) {
+            distances[i] = distance(order, solutions.get(i));
+            if(distances[i] == 0)
+                return false;
+        }
+        if(solutions.size() < capacity) {
+            solutions.add(order.copy());
+            makespans.add(makespan);
+            return true;
+        }
+
+        int worst = 0;
+        for(int i = 1 ; i < solutions.size() ; i++)
+            if(makespans.get(i) > makespans.get(worst))
+                worst = i;
+        if(makespan >= makespans.get(worst))
+            return false;
+        int replaced = -1;
+        for(int i = 0 ; i < solutions.size() ; i++)
+            if(makespans.get(i) >= makespan && (replaced == -1 || distances[i] < distances[replaced]))
+                replaced = i;
+        solutions.set(replaced, order.copy());
+        makespans.set(replaced, makespan);
+        return true;
+    }
+
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    /** Copy of the i-th solution of the pool. */
+    public synchronized ResourceOrder get(int i) {
+        return solutions.get(i).copy();
+    }
+
+    public synchronized int makespan(int i) {
+        return makespans.get(i);
+    }
+
+    /** Index of the best solution of the pool (the first one in case of tie). The pool must not be empty. */
+    public synchronized int best() {
+        int best = 0;
+        for(int i = 1 ; i < solutions.size() ; i++)
+            if(makespans.get(i) < makespans.get(best))
+                best = i;
+        return best;
+    }
+}
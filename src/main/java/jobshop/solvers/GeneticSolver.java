@@ -0,0 +1,287 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+
+/** Generational genetic algorithm on the JobNumbers representation.
+ *
+ * The whole population is stored in a single int array (one slice of numJobs * numTasks genes per individual).
+ * Offspring are produced by tournament selection, crossover (JOX or PPX) and mutation, with the best individuals
+ * of the previous generation kept unchanged (elitism). The fitness of a generation is evaluated in parallel on a
+ * ForkJoinPool, each worker thread decoding with its own scratch buffers. Random choices are all made on the
+ * calling thread, so that the result does not depend on the number of threads.
+ *
+ * In memetic mode, the best offspring of each generation is improved by a short descent on its resource order.
+ */
+public class GeneticSolver implements Solver {
+
+    public enum Crossover {
+        /** Job-based order crossover : the genes of a random subset of jobs keep their position from the first parent,
+         * the others are filled in the order of the second parent. */
+        JOX,
+        /** Precedence preserving crossover : each gene is taken from a randomly chosen parent, in the order of that parent. */
+        PPX
+    }
+
+    /** Number of improving moves of the descent applied in memetic mode. */
+    private static final int MEMETIC_STEPS = 50;
+    /** Below this number of individuals, fitness evaluation is not split further between threads. */
+    private static final int EVALUATION_CHUNK = 4;
+
+    private final int populationSize;
+    private final int elite;
+    private final Crossover crossover;
+    private final double mutationRate;
+    private final boolean memetic;
+    private final long seed;
+    private final int numThreads;
+
+    public GeneticSolver() {
+        this(100, Crossover.JOX, 0.2, false, 0, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GeneticSolver(int populationSize, Crossover crossover, double mutationRate, boolean memetic, long seed, int numThreads) {
+        if(populationSize < 2)
+            throw new IllegalArgumentException("Population must contain at least two individuals");
+        this.populationSize = populationSize;
+        this.elite = Math.max(1, populationSize / 20);
+        this.crossover = crossover;
+        this.mutationRate = mutationRate;
+        this.memetic = memetic;
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        Random random = new Random(seed);
+        int n = instance.numJobs * instance.numTasks;
+
+        int[] population = new int[populationSize * n];
+        int[] offspring = new int[populationSize * n];
+        int[] fitness = new int[populationSize];
+        int[] offspringFitness = new int[populationSize];
+
+        // initial population : the basic solution and random shuffles of it
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                population[t * instance.numJobs + j] = j;
+        for(int i = 1 ; i < populationSize ; i++) {
+            System.arraycopy(population, 0, population, i * n, n);
+            shuffle(population, i * n, n, random);
+        }
+
+        int[] best = new int[n];
+        int bestMakespan = Integer.MAX_VALUE;
+        int lowerBound = LowerBound.of(instance);
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        ThreadLocal<JobNumbers.Scratch> scratches = ThreadLocal.withInitial(() -> new JobNumbers.Scratch(instance));
+        try {
+            pool.invoke(new Evaluation(population, fitness, n, 0, populationSize, scratches));
+
+            // per-job buffers of the crossovers
+            boolean[] selectedJobs = new boolean[instance.numJobs];
+            int[] placed = new int[instance.numJobs];
+            int[] seen1 = new int[instance.numJobs];
+            int[] seen2 = new int[instance.numJobs];
+
+            while(System.currentTimeMillis() < deadline) {
+                int[] order = sortedIndices(fitness);
+                if(fitness[order[0]] < bestMakespan) {
+                    bestMakespan = fitness[order[0]];
+                    System.arraycopy(population, order[0] * n, best, 0, n);
+                }
+                if(bestMakespan == lowerBound)
+                    break;
+
+                // elitism
+                for(int i = 0 ; i < elite ; i++) {
+                    System.arraycopy(population, order[i] * n, offspring, i * n, n);
+                    offspringFitness[i] = fitness[order[i]];
+                }
+                for(int i = elite ; i < populationSize ; i++) {
+                    int p1 = tournament(fitness, random);
+                    int p2 = tournament(fitness, random);
+                    if(crossover == Crossover.JOX)
+                        jox(population, p1 * n, p2 * n, offspring, i * n, n, selectedJobs, random);
+                    else
+                        ppx(population, p1 * n, p2 * n, offspring, i * n, n, placed, seen1, seen2, random);
+                    if(random.nextDouble() < mutationRate)
+                        mutate(offspring, i * n, n, random);
+                }
+                pool.invoke(new Evaluation(offspring, offspringFitness, n, elite, populationSize, scratches));
+
+                if(memetic)
+                    improveBest(instance, offspring, offspringFitness, n, deadline);
+
+                int[] tmp = population;
+                population = offspring;
+                offspring = tmp;
+                tmp = fitness;
+                fitness = offspringFitness;
+                offspringFitness = tmp;
+            }
+
+            for(int i = 0 ; i < populationSize ; i++) {
+                if(fitness[i] < bestMakespan) {
+                    bestMakespan = fitness[i];
+                    System.arraycopy(population, i * n, best, 0, n);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        JobNumbers sol = new JobNumbers(instance);
+        System.arraycopy(best, 0, sol.jobs, 0, n);
+        sol.nextToSet = n;
+        Result.ExitCause cause = bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, sol.toSchedule(), cause);
+    }
+
+    /** Evaluates the makespan of the individuals [from, to) of a population slab, splitting the range between threads. */
+    private static final class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int[] population;
+        final int[] fitness;
+        final int n;
+        final int from;
+        final int to;
+        final ThreadLocal<JobNumbers.Scratch> scratches;
+
+        Evaluation(int[] population, int[] fitness, int n, int from, int to, ThreadLocal<JobNumbers.Scratch> scratches) {
+            this.population = population;
+            this.fitness = fitness;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+            this.scratches = scratches;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= EVALUATION_CHUNK) {
+                JobNumbers.Scratch scratch = scratches.get();
+                for(int i = from ; i < to ; i++)
+                    fitness[i] = JobNumbers.evaluateMakespan(population, i * n, scratch);
+            } else {
+                int middle = (from + to) / 2;
+                invokeAll(new Evaluation(population, fitness, n, from, middle, scratches),
+                          new Evaluation(population, fitness, n, middle, to, scratches));
+            }
+        }
+    }
+
+    /** Improves the best individual of the slab with a short descent on its resource order (memetic mode). */
+    private static void improveBest(Instance instance, int[] population, int[] fitness, int n, long deadline) {
+        int bestIndex = 0;
+        for(int i = 1 ; i < fitness.length ; i++)
+            if(fitness[i] < fitness[bestIndex])
+                bestIndex = i;
+
+        JobNumbers numbers = new JobNumbers(instance);
+        System.arraycopy(population, bestIndex * n, numbers.jobs, 0, n);
+        numbers.nextToSet = n;
+        LongestPaths paths = new LongestPaths(ResourceOrder.fromJobNumbers(numbers));
+        if(DescentSolver.descend(paths, deadline, MEMETIC_STEPS) > 0) {
+            JobNumbers improved = JobNumbers.fromResourceOrder(paths.order);
+            System.arraycopy(improved.jobs, 0, population, bestIndex * n, n);
+            fitness[bestIndex] = paths.makespan();
+        }
+    }
+
+    /** Binary tournament : index of the better of two random individuals. */
+    private static int tournament(int[] fitness, Random random) {
+        int a = random.nextInt(fitness.length);
+        int b = random.nextInt(fitness.length);
+        return fitness[a] <= fitness[b] ? a : b;
+    }
+
+    private static void jox(int[] pop, int p1, int p2, int[] child, int c, int n, boolean[] selected, Random random) {
+        for(int j = 0 ; j < selected.length ; j++)
+            selected[j] = random.nextBoolean();
+        // genes of selected jobs stay at their position from the first parent
+        for(int i = 0 ; i < n ; i++)
+            child[c + i] = selected[pop[p1 + i]] ? pop[p1 + i] : -1;
+        // other positions are filled with the other jobs, in the order of the second parent
+        int k = 0;
+        for(int i = 0 ; i < n ; i++) {
+            if(child[c + i] != -1)
+                continue;
+            while(selected[pop[p2 + k]])
+                k++;
+            child[c + i] = pop[p2 + k++];
+        }
+    }
+
+    private static void ppx(int[] pop, int p1, int p2, int[] child, int c, int n, int[] placed, int[] seen1, int[] seen2, Random random) {
+        // for each job : number of its genes already placed in the child, and seen by the cursor of each parent
+        Arrays.fill(placed, 0);
+        Arrays.fill(seen1, 0);
+        Arrays.fill(seen2, 0);
+        int k1 = 0;
+        int k2 = 0;
+        for(int i = 0 ; i < n ; i++) {
+            int gene;
+            if(random.nextBoolean()) {
+                // skip genes already taken from the other parent
+                while(seen1[pop[p1 + k1]] < placed[pop[p1 + k1]])
+                    seen1[pop[p1 + k1++]]++;
+                gene = pop[p1 + k1++];
+                seen1[gene]++;
+            } else {
+                while(seen2[pop[p2 + k2]] < placed[pop[p2 + k2]])
+                    seen2[pop[p2 + k2++]]++;
+                gene = pop[p2 + k2++];
+                seen2[gene]++;
+            }
+            placed[gene]++;
+            child[c + i] = gene;
+        }
+    }
+
+    /** Moves a random gene to another random position. */
+    private static void mutate(int[] pop, int start, int n, Random random) {
+        int from = random.nextInt(n);
+        int to = random.nextInt(n);
+        int gene = pop[start + from];
+        if(from < to)
+            System.arraycopy(pop, start + from + 1, pop, start + from, to - from);
+        else
+            System.arraycopy(pop, start + to, pop, start + to + 1, from - to);
+        pop[start + to] = gene;
+    }
+
+    private static void shuffle(int[] array, int start, int n, Random random) {
+        for(int i = n - 1 ; i > 0 ; i--) {
+            int k = random.nextInt(i + 1);
+            int tmp = array[start + i];
+            array[start + i] = array[start + k];
+            array[start + k] = tmp;
+        }
+    }
+
+    /** Indices of the individuals by increasing makespan (ties by index). */
+    private static int[] sortedIndices(int[] fitness) {
+        long[] keys = new long[fitness.length];
+        for(int i = 0 ; i < fitness.length ; i++)
+            keys[i] = ((long) fitness[i] << 32) | i;
+        Arrays.sort(keys);
+        int[] order = new int[fitness.length];
+        for(int i = 0 ; i < fitness.length ; i++)
+            order[i] = (int) keys[i];
+        return order;
+    }
+}
@@ -0,0 +1,199 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.solvers.GreedySolver.Priority;
+
+/** Builds active schedules with the Giffler-Thompson algorithm.
+ *
+ * At each step, the schedulable task with the earliest completion time fixes a machine, and the conflict set is made
+ * of the schedulable tasks of this machine that could start before that completion time. One task of the conflict set
+ * is scheduled, chosen by a priority rule.
+ *
+ * In GRASP mode, the task is instead drawn uniformly from a restricted candidate list : the tasks of the conflict set
+ * whose priority is within alpha of the best one. Constructions are then repeated until the deadline on several
+ * threads, each followed by a short descent, and the best solution is kept.
+ */
+public class GifflerThompsonSolver implements Solver {
+
+    /** Maximal number of improving moves of the descent following each GRASP construction. */
+    private static final int DESCENT_STEPS = 200;
+
+    private final Priority priority;
+    private final double alpha;
+    private final long seed;
+    private final int numThreads;
+
+    /** Single deterministic construction with the given priority rule. */
+    public GifflerThompsonSolver(Priority priority) {
+        this(priority, 0, 0, 1);
+    }
+
+    /** GRASP : randomized constructions followed by a descent, on numThreads threads until the deadline.
+     * @param alpha width of the restricted candidate list, from 0 (only the best tasks) to 1 (the whole conflict set). */
+    public GifflerThompsonSolver(Priority priority, double alpha, long seed, int numThreads) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed");
+        this.priority = priority;
+        this.alpha = alpha;
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        if(alpha == 0) {
+            ResourceOrder order = construct(instance, priority, 0, null);
+            return new Result(instance, order.toSchedule(), Result.ExitCause.Timeout);
+        }
+
+        int lowerBound = LowerBound.of(instance);
+        SplittableRandom root = new SplittableRandom(seed);
+        List<SplittableRandom> streams = new ArrayList<>();
+        for(int i = 0 ; i < numThreads ; i++)
+            streams.add(root.split());
+
+        List<LongestPaths> bests = new ArrayList<>();
+        if(numThreads == 1) {
+            bests.add(grasp(instance, deadline, lowerBound, streams.get(0)));
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<LongestPaths>> futures = new ArrayList<>();
+                for(SplittableRandom stream : streams)
+                    futures.add(pool.submit(() -> grasp(instance, deadline, lowerBound, stream)));
+                for(Future<LongestPaths> future : futures)
+                    bests.add(future.get());
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        // best makespan, lowest thread index in case of tie
+        LongestPaths best = bests.get(0);
+        for(LongestPaths paths : bests)
+            if(paths.makespan() < best.makespan())
+                best = paths;
+        Result.ExitCause cause = best.makespan() == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, best.toSchedule(), cause);
+    }
+
+    /** Repeats constructions followed by a descent until the deadline (at least once). Returns the best solution. */
+    private LongestPaths grasp(Instance instance, long deadline, int lowerBound, SplittableRandom random) {
+        LongestPaths best = null;
+        do {
+            LongestPaths paths = new LongestPaths(construct(instance, priority, alpha, random));
+            DescentSolver.descend(paths, deadline, DESCENT_STEPS);
+            if(best == null || paths.makespan() < best.makespan())
+                best = paths;
+        } while(best.makespan() > lowerBound && System.currentTimeMillis() < deadline);
+        return best;
+    }
+
+    /** Builds an active schedule, returned as the resource order of its machines.
+     * If alpha is 0, the best task of the conflict set according to the priority rule is always chosen (ties by job
+     * index), otherwise it is drawn from the restricted candidate list with the given random generator. */
+    static ResourceOrder construct(Instance instance, Priority priority, double alpha, SplittableRandom random) {
+        ResourceOrder order = new ResourceOrder(instance);
+        int[] nextTask = new int[instance.numJobs];
+        int[] jobReady = new int[instance.numJobs];
+        int[] machineReady = new int[instance.numMachines];
+        // remaining work of each job, including its next task
+        int[] remaining = new int[instance.numJobs];
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                remaining[j] += instance.duration(j, t);
+
+        int[] conflict = new int[instance.numJobs];
+        long[] scores = new long[instance.numJobs];
+        for(int step = 0 ; step < instance.numOps ; step++) {
+            // schedulable task with the earliest completion time
+            int machine = -1;
+            int earliestJob = -1;
+            int earliestCompletion = Integer.MAX_VALUE;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] == instance.numTasks)
+                    continue;
+                int m = instance.machine(j, nextTask[j]);
+                int completion = Math.max(jobReady[j], machineReady[m]) + instance.duration(j, nextTask[j]);
+                if(completion < earliestCompletion) {
+                    earliestCompletion = completion;
+                    earliestJob = j;
+                    machine = m;
+                }
+            }
+
+            // conflict set : tasks of that machine that could start before this completion, and the task reaching it
+            // (which starts at its completion when its duration is null)
+            int size = 0;
+            long bestScore = Long.MAX_VALUE;
+            long worstScore = Long.MIN_VALUE;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] == instance.numTasks || instance.machine(j, nextTask[j]) != machine)
+                    continue;
+                int start = Math.max(jobReady[j], machineReady[machine]);
+                if(start >= earliestCompletion && j != earliestJob)
+                    continue;
+                long score = score(priority, start, instance.duration(j, nextTask[j]), remaining[j]);
+                conflict[size] = j;
+                scores[size++] = score;
+                bestScore = Math.min(bestScore, score);
+                worstScore = Math.max(worstScore, score);
+            }
+
+            int job = -1;
+            if(alpha == 0) {
+                for(int i = 0 ; i < size && job == -1 ; i++)
+                    if(scores[i] == bestScore)
+                        job = conflict[i];
+            } else {
+                // restricted candidate list
+                long threshold = bestScore + (long) (alpha * (worstScore - bestScore));
+                int candidates = 0;
+                for(int i = 0 ; i < size ; i++)
+                    if(scores[i] <= threshold)
+                        conflict[candidates++] = conflict[i];
+                job = conflict[random.nextInt(candidates)];
+            }
+
+            int task = nextTask[job];
+            int end = Math.max(jobReady[job], machineReady[machine]) + instance.duration(job, task);
+            order.tasksByMachine[machine][order.nextFreeSlot[machine]++] = new Task(job, task);
+            jobReady[job] = end;
+            machineReady[machine] = end;
+            remaining[job] -= instance.duration(job, task);
+            nextTask[job]++;
+        }
+        return order;
+    }
+
+    /** Priority of a task of the conflict set, the lower the better. EST rules first favor the earliest start. */
+    private static long score(Priority priority, int start, int duration, int remaining) {
+        switch(priority) {
+            case SPT: return duration;
+            case LPT: return -duration;
+            case SRPT: return remaining;
+            case LRPT: return -remaining;
+            case EST_SPT: return ((long) start << 32) + duration;
+            case EST_LPT: return ((long) start << 32) - duration;
+            case EST_SRPT: return ((long) start << 32) + remaining;
+            case EST_LRPT: return ((long) start << 32) - remaining;
+            default: throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.DescentSolver.Block;
+import jobshop.solvers.DescentSolver.Swap;
+
+/** Iterated local search : alternates the descent of `DescentSolver.descend` with random kicks, until the deadline
+ * or the maximal number of kicks.
+ *
+ * A kick applies a few random swaps on critical blocks, then the descent leads to a new local optimum, which replaces
+ * the current one if the acceptance criterion allows it. Otherwise the swaps of the kick and of the descent are undone
+ * in reverse order, so that every cycle is evaluated incrementally on the same heads and tails.
+ */
+public class IteratedLocalSearchSolver implements Solver {
+
+    /** Which new local optima replace the current one. */
+    public enum Acceptance {
+        /** Only strictly better ones. */
+        BETTER,
+        /** Better or equal ones, which allows moving on plateaus. */
+        NOT_WORSE,
+        /** All of them (random walk over local optima). */
+        ALWAYS
+    }
+
+    /** Default parameters, used by `Main`, the portfolio and as the reference configuration of the tuner */
+    public static final int DEFAULT_KICK_SIZE = 3;
+    public static final Acceptance DEFAULT_ACCEPTANCE = Acceptance.NOT_WORSE;
+
+    private final int kickSize;
+    private final Acceptance acceptance;
+    private final long seed;
+    private final int maxKicks;
+
+    public IteratedLocalSearchSolver() {
+        this(DEFAULT_KICK_SIZE, DEFAULT_ACCEPTANCE, 0);
+    }
+
+    /** @param kickSize number of random swaps of each kick */
+    public IteratedLocalSearchSolver(int kickSize, Acceptance acceptance, long seed) {
+        this(kickSize, acceptance, seed, Integer.MAX_VALUE);
+    }
+
+    /** @param maxKicks number of kicks after which the search stops, which makes it deterministic without deadline */
+    public IteratedLocalSearchSolver(int kickSize, Acceptance acceptance, long seed, int maxKicks) {
+        if(kickSize < 1)
+            throw new IllegalArgumentException("A kick needs at least one swap");
+        this.kickSize = kickSize;
+        this.acceptance = acceptance;
+        this.seed = seed;
+        this.maxKicks = maxKicks;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, schedule -> {});
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+        ResourceOrder initial = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, deadline).schedule);
+        return solve(initial, deadline, new Random(seed), listener);
+    }
+
+    /** Runs the search from the given solution until the deadline or the maximal number of kicks. */
+    Result solve(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener) {
+        Instance instance = initial.instance;
+        int lowerBound = LowerBound.of(instance);
+
+        LongestPaths current = new LongestPaths(initial.copy());
+        DescentSolver.descend(current, deadline, Integer.MAX_VALUE);
+        int currentMakespan = current.makespan();
+        ResourceOrder best = current.order.copy();
+        int bestMakespan = currentMakespan;
+        listener.accept(best.toSchedule());
+
+        List<Swap> journal = new ArrayList<>();
+        for(int kicks = 0 ; kicks < maxKicks && bestMakespan > lowerBound && System.currentTimeMillis() < deadline ; kicks++) {
+            journal.clear();
+            if(!kick(current, random, journal))
+                break; // no critical block : the solution is optimal
+            DescentSolver.descend(current, deadline, Integer.MAX_VALUE, journal);
+            int makespan = current.makespan();
+
+            if(makespan < bestMakespan) {
+                bestMakespan = makespan;
+                best = current.order.copy();
+                listener.accept(best.toSchedule());
+            }
+            if(accept(makespan, currentMakespan)) {
+                currentMakespan = makespan;
+            } else {
+                // swaps are their own inverse
+                for(int i = journal.size() - 1 ; i >= 0 ; i--)
+                    journal.get(i).applyOn(current);
+                assert current.makespan() == currentMakespan;
+            }
+        }
+
+        Result.ExitCause cause = bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, best.toSchedule(), cause);
+    }
+
+    private boolean accept(int makespan, int currentMakespan) {
+        switch(acceptance) {
+            case BETTER: return makespan < currentMakespan;
+            case NOT_WORSE: return makespan <= currentMakespan;
+            default: return true;
+        }
+    }
+
+    /** Applies kickSize random swaps on the blocks of the successive critical paths, appending them to the journal.
+     * Returns false if the critical path has no block. */
+    private boolean kick(LongestPaths current, Random random, List<Swap> journal) {
+        for(int i = 0 ; i < kickSize ; i++) {
+            List<Block> blocks = DescentSolver.blocksOfCriticalPath(current.order, current.criticalPath());
+            if(blocks.isEmpty())
+                return i > 0;
+            List<Swap> swaps = DescentSolver.neighbors(blocks.get(random.nextInt(blocks.size())));
+            Swap swap = swaps.get(random.nextInt(swaps.size()));
+            // swaps in critical blocks never create a cycle
+            boolean applied = swap.applyOn(current);
+            assert applied;
+            journal.add(swap);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,504 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+/** Large neighborhood search with exact re-optimization of time windows.
+ *
+ * A window frees, on every machine, the tasks starting in a time interval around a random task of the critical path
+ * (a contiguous segment of each machine order). The order of the freed tasks is re-optimized by a branch and bound
+ * limited in number of nodes, while the rest of the resource order stays fixed, and the result is reinserted if it
+ * does not increase the makespan : on large instances, several critical paths usually have to be broken before the
+ * makespan decreases, so moves on plateaus are needed. Each improvement is followed by a descent.
+ *
+ * Several windows with disjoint time intervals are solved in parallel from the same solution. Their results are then
+ * reinserted one after the other, each one being kept only if it still does not increase the makespan.
+ */
+public class LargeNeighborhoodSolver implements Solver {
+
+    /** Maximal number of nodes of the branch and bound of one window. */
+    private static final int WINDOW_NODES = 500;
+    /** Default average number of tasks per machine in a window */
+    public static final int DEFAULT_WINDOW_TASKS = 6;
+
+    private final int windowTasks;
+    private final int numThreads;
+    private final long seed;
+
+    public LargeNeighborhoodSolver() {
+        this(DEFAULT_WINDOW_TASKS, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /** @param windowTasks average number of tasks per machine in a window */
+    public LargeNeighborhoodSolver(int windowTasks, int numThreads, long seed) {
+        if(windowTasks < 2 || numThreads < 1)
+            throw new IllegalArgumentException("Windows need at least two tasks per machine and one thread");
+        this.windowTasks = windowTasks;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, schedule -> {});
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+        ResourceOrder initial = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, deadline).schedule);
+        return solve(initial, deadline, new Random(seed), listener);
+    }
+
+    /** Runs the search from the given solution until the deadline. */
+    Result solve(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener) {
+        Instance instance = initial.instance;
+        int lowerBound = LowerBound.of(instance);
+        LongestPaths current = new LongestPaths(initial.copy());
+        DescentSolver.descend(current, deadline, Integer.MAX_VALUE);
+        listener.accept(current.toSchedule());
+
+        ExecutorService pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        try {
+            while(current.makespan() > lowerBound && System.currentTimeMillis() < deadline) {
+                int makespan = current.makespan();
+                int[][] sequences = sequences(current.order);
+                int[] heads = new int[instance.numOps];
+                int[] tails = new int[instance.numOps];
+                for(int op = 0 ; op < instance.numOps ; op++) {
+                    heads[op] = current.head(op);
+                    tails[op] = current.tail(op);
+                }
+
+                List<Window> windows = pickWindows(current, heads, tails, sequences, random);
+                List<int[][]> results = new ArrayList<>();
+                if(pool == null) {
+                    for(Window window : windows)
+                        results.add(window.solve(makespan + 1, deadline));
+                } else {
+                    List<Future<int[][]>> futures = new ArrayList<>();
+                    for(Window window : windows)
+                        futures.add(pool.submit(() -> window.solve(makespan + 1, deadline)));
+                    for(Future<int[][]> future : futures)
+                        results.add(future.get());
+                }
+
+                // windows are disjoint segments of the machine orders : each one can be reinserted in the current order
+                boolean improved = false;
+                for(int i = 0 ; i < windows.size() ; i++) {
+                    if(results.get(i) == null)
+                        continue;
+                    ResourceOrder candidate = current.order.copy();
+                    windows.get(i).reinsert(candidate, results.get(i));
+                    if(candidate.toSchedule() == null)
+                        continue;
+                    LongestPaths paths = new LongestPaths(candidate);
+                    if(paths.makespan() <= current.makespan()) {
+                        improved |= paths.makespan() < current.makespan();
+                        current = paths;
+                    }
+                }
+                if(improved) {
+                    DescentSolver.descend(current, deadline, Integer.MAX_VALUE);
+                    listener.accept(current.toSchedule());
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if(pool != null)
+                pool.shutdownNow();
+        }
+
+        Result.ExitCause cause = current.makespan() == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, current.toSchedule(), cause);
+    }
+
+    /** Operations of each machine, in the order of the resource order. */
+    private static int[][] sequences(ResourceOrder order) {
+        Instance instance = order.instance;
+        int[][] sequences = new int[instance.numMachines][instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++)
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                sequences[m][i] = instance.op(order.tasksByMachine[m][i].job, order.tasksByMachine[m][i].task);
+        return sequences;
+    }
+
+    /** Up to numThreads windows with disjoint time intervals, each around a random task of the critical path. */
+    private List<Window> pickWindows(LongestPaths current, int[] heads, int[] tails, int[][] sequences, Random random) {
+        Instance instance = current.instance;
+        List<Task> path = current.criticalPath();
+        int width = Math.max(1, current.makespan() * windowTasks / instance.numJobs);
+        List<Window> windows = new ArrayList<>();
+        List<int[]> intervals = new ArrayList<>();
+        for(int attempt = 0 ; attempt < 2 * numThreads && windows.size() < numThreads ; attempt++) {
+            Task center = path.get(random.nextInt(path.size()));
+            // random width between half and one and a half times the average
+            int w = width / 2 + random.nextInt(width + 1);
+            int from = heads[instance.op(center.job, center.task)] - random.nextInt(w + 1);
+            int to = from + w;
+            boolean disjoint = true;
+            for(int[] interval : intervals)
+                disjoint &= to <= interval[0] || interval[1] <= from;
+            if(!disjoint)
+                continue;
+            intervals.add(new int[] {from, to});
+            windows.add(new Window(instance, sequences, heads, tails, from, to));
+        }
+        return windows;
+    }
+
+    /** The subproblem of ordering, on each machine, the tasks starting in [from, to) in the current solution,
+     * everything else being fixed. Solved by a branch and bound on the precedences between these tasks, with the same
+     * propagation as `BranchAndBoundSolver` (heads and tails, immediate selections, one-machine bounds).
+     *
+     * Machine orders are sorted by start time and no arc goes back in time : arcs only lead from the tasks starting
+     * before the window to the window and to the tasks starting after it, and from the window to the tasks starting
+     * after it. The heads of the tasks before the window and the tails of the tasks after it thus do not depend on the
+     * order of the window, and are taken from the current solution as release and delivery times of the window tasks.
+     * Propagation only visits the window : its cost grows with the size of the window, not with the instance.
+     * The branch and bound minimizes the longest path through the window ; paths avoiding it are paths of the current
+     * solution, no longer than its makespan. */
+    static final class Window {
+        final Instance instance;
+        /** First position of the segment of each machine, and its tasks. */
+        final int[] first;
+        final int[][] segments;
+        /** Local index of the first task of the segment of each machine, tasks are numbered machine by machine. */
+        private final int[] offset;
+        /** Number of tasks in the window. */
+        private final int size;
+
+        /** For each task of the window, by local index : its operation, machine and position in its segment. */
+        private final int[] ops;
+        private final int[] machineOf;
+        private final int[] position;
+        /** Release and delivery times given by the tasks outside the window. */
+        private final int[] release;
+        private final int[] delivery;
+        /** Local index of the previous and next tasks of the job, -1 if they are outside the window. */
+        private final int[] jobPrev;
+        private final int[] jobNext;
+
+        private final int[] head;
+        private final int[] tail;
+        private final int[] inDegree;
+        private final int[] queue;
+
+        private int upperBound;
+        private int[][] best;
+        private int nodes;
+        private long deadline;
+
+        Window(Instance instance, int[][] sequences, int[] heads, int[] tails, int from, int to) {
+            this.instance = instance;
+            first = new int[instance.numMachines];
+            segments = new int[instance.numMachines][];
+            offset = new int[instance.numMachines + 1];
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                int[] seq = sequences[m];
+                int lo = firstStartingAfter(seq, heads, from);
+                int hi = firstStartingAfter(seq, heads, to);
+                first[m] = lo;
+                segments[m] = Arrays.copyOfRange(seq, lo, hi);
+                offset[m + 1] = offset[m] + hi - lo;
+            }
+            size = offset[instance.numMachines];
+
+            ops = new int[size];
+            machineOf = new int[size];
+            position = new int[size];
+            release = new int[size];
+            delivery = new int[size];
+            jobPrev = new int[size];
+            jobNext = new int[size];
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                int[] seq = sequences[m];
+                int lo = first[m];
+                int hi = lo + segments[m].length;
+                // the machine neighbors of the segment precede and follow all of its tasks
+                int machineRelease = lo > 0 ? heads[seq[lo - 1]] + instance.duration(seq[lo - 1]) : 0;
+                int machineDelivery = hi < seq.length ? instance.duration(seq[hi]) + tails[seq[hi]] : 0;
+                for(int a = 0 ; a < segments[m].length ; a++) {
+                    int l = offset[m] + a;
+                    int op = segments[m][a];
+                    ops[l] = op;
+                    machineOf[l] = m;
+                    position[l] = a;
+                    release[l] = machineRelease;
+                    delivery[l] = machineDelivery;
+
+                    int prev = instance.prevInJob(op);
+                    jobPrev[l] = prev == -1 ? -1 : local(prev, heads, from, to);
+                    if(prev != -1 && jobPrev[l] == -1)
+                        release[l] = Math.max(release[l], heads[prev] + instance.duration(prev));
+                    int next = instance.nextInJob(op);
+                    jobNext[l] = next == -1 ? -1 : local(next, heads, from, to);
+                    if(next != -1 && jobNext[l] == -1)
+                        delivery[l] = Math.max(delivery[l], instance.duration(next) + tails[next]);
+                }
+            }
+
+            head = new int[size];
+            tail = new int[size];
+            inDegree = new int[size];
+            queue = new int[size];
+        }
+
+        /** Position of the first task of the machine sequence starting at or after time t (heads are sorted). */
+        private static int firstStartingAfter(int[] seq, int[] heads, int t) {
+            int lo = 0, hi = seq.length;
+            while(lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if(heads[seq[mid]] < t)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        /** Local index of the operation, -1 if it does not start in the window. */
+        private int local(int op, int[] heads, int from, int to) {
+            if(heads[op] < from || heads[op] >= to)
+                return -1;
+            int m = instance.machine(op);
+            for(int a = 0 ; a < segments[m].length ; a++)
+                if(segments[m][a] == op)
+                    return offset[m] + a;
+            throw new IllegalStateException("Machine order not sorted by start time");
+        }
+
+        /** Returns the new segments of a solution with a makespan below upperBound, or null if none was found. */
+        int[][] solve(int upperBound, long deadline) {
+            this.upperBound = upperBound;
+            this.deadline = deadline;
+            this.best = null;
+            this.nodes = 0;
+            boolean[][] before = new boolean[instance.numMachines][];
+            for(int m = 0 ; m < instance.numMachines ; m++)
+                before[m] = new boolean[segments[m].length * segments[m].length];
+            branch(before);
+            return best;
+        }
+
+        /** Replaces the segments of the resource order by the given ones. */
+        void reinsert(ResourceOrder order, int[][] newSegments) {
+            for(int m = 0 ; m < instance.numMachines ; m++)
+                for(int i = 0 ; i < newSegments[m].length ; i++) {
+                    int op = newSegments[m][i];
+                    order.tasksByMachine[m][first[m] + i] = new Task(instance.jobOf(op), instance.taskOf(op));
+                }
+        }
+
+        private void branch(boolean[][] before) {
+            if(nodes++ >= WINDOW_NODES || System.currentTimeMillis() > deadline)
+                return;
+            if(!propagate(before))
+                return;
+
+            int bestMachine = -1, bestA = -1, bestB = -1;
+            int bestBound = -1;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                int k = segments[m].length;
+                for(int a = 0 ; a < k ; a++) {
+                    for(int b = a + 1 ; b < k ; b++) {
+                        if(before[m][a * k + b] || before[m][b * k + a])
+                            continue;
+                        int ab = pairBound(m, a, b);
+                        int ba = pairBound(m, b, a);
+                        if(Math.min(ab, ba) > bestBound) {
+                            bestBound = Math.min(ab, ba);
+                            bestMachine = m;
+                            bestA = ab <= ba ? a : b;
+                            bestB = ab <= ba ? b : a;
+                        }
+                    }
+                }
+            }
+
+            if(bestMachine == -1) {
+                // complete order of the segments, better than the upper bound
+                int makespan = 0;
+                for(int l = 0 ; l < size ; l++)
+                    makespan = Math.max(makespan, head[l] + instance.duration(ops[l]) + tail[l]);
+                upperBound = makespan;
+                best = new int[instance.numMachines][];
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    int k = segments[m].length;
+                    best[m] = new int[k];
+                    for(int a = 0 ; a < k ; a++) {
+                        int rank = 0;
+                        for(int b = 0 ; b < k ; b++)
+                            if(before[m][b * k + a])
+                                rank++;
+                        best[m][rank] = segments[m][a];
+                    }
+                }
+                return;
+            }
+
+            boolean[][] child = copy(before);
+            if(fix(child[bestMachine], segments[bestMachine].length, bestA, bestB))
+                branch(child);
+            child = copy(before);
+            if(fix(child[bestMachine], segments[bestMachine].length, bestB, bestA))
+                branch(child);
+        }
+
+        private static boolean[][] copy(boolean[][] before) {
+            boolean[][] copy = new boolean[before.length][];
+            for(int m = 0 ; m < before.length ; m++)
+                copy[m] = before[m].clone();
+            return copy;
+        }
+
+        /** Length of the path through the tasks at positions a then b of the segment of machine m. */
+        private int pairBound(int m, int a, int b) {
+            int la = offset[m] + a;
+            int lb = offset[m] + b;
+            return head[la] + instance.duration(ops[la]) + instance.duration(ops[lb]) + tail[lb];
+        }
+
+        /** Fixes a before b in a segment of k tasks, with transitive closure. Returns false if b already precedes a. */
+        private static boolean fix(boolean[] before, int k, int a, int b) {
+            if(before[b * k + a])
+                return false;
+            for(int x = 0 ; x < k ; x++) {
+                if(x != a && !before[x * k + a])
+                    continue;
+                for(int y = 0 ; y < k ; y++) {
+                    if(y != b && !before[b * k + y])
+                        continue;
+                    if(x == y || before[y * k + x])
+                        return false;
+                    before[x * k + y] = true;
+                }
+            }
+            return true;
+        }
+
+        private boolean propagate(boolean[][] before) {
+            boolean changed = true;
+            while(changed) {
+                if(!longestPaths(before) || lowerBound() >= upperBound)
+                    return false;
+                changed = false;
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    int k = segments[m].length;
+                    for(int a = 0 ; a < k ; a++) {
+                        for(int b = a + 1 ; b < k ; b++) {
+                            if(before[m][a * k + b] || before[m][b * k + a])
+                                continue;
+                            boolean abPossible = pairBound(m, a, b) < upperBound;
+                            boolean baPossible = pairBound(m, b, a) < upperBound;
+                            if(!abPossible && !baPossible)
+                                return false;
+                            if(!abPossible || !baPossible) {
+                                if(!(abPossible ? fix(before[m], k, a, b) : fix(before[m], k, b, a)))
+                                    return false;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Heads and tails of the window tasks, from their release and delivery times, the job arcs inside the window
+         * and the precedences fixed in the segments. */
+        private boolean longestPaths(boolean[][] before) {
+            int count = 0;
+            for(int l = 0 ; l < size ; l++) {
+                int m = machineOf[l];
+                int k = segments[m].length;
+                int degree = jobPrev[l] == -1 ? 0 : 1;
+                for(int x = 0 ; x < k ; x++)
+                    if(before[m][x * k + position[l]])
+                        degree++;
+                inDegree[l] = degree;
+                head[l] = release[l];
+                if(degree == 0)
+                    queue[count++] = l;
+            }
+            for(int i = 0 ; i < count ; i++) {
+                int l = queue[i];
+                int end = head[l] + instance.duration(ops[l]);
+                int next = jobNext[l];
+                if(next != -1) {
+                    head[next] = Math.max(head[next], end);
+                    if(--inDegree[next] == 0)
+                        queue[count++] = next;
+                }
+                int m = machineOf[l];
+                int k = segments[m].length;
+                for(int y = 0 ; y < k ; y++) {
+                    if(before[m][position[l] * k + y]) {
+                        int s = offset[m] + y;
+                        head[s] = Math.max(head[s], end);
+                        if(--inDegree[s] == 0)
+                            queue[count++] = s;
+                    }
+                }
+            }
+            if(count < size)
+                return false;
+
+            for(int i = size - 1 ; i >= 0 ; i--) {
+                int l = queue[i];
+                int q = delivery[l];
+                int next = jobNext[l];
+                if(next != -1)
+                    q = Math.max(q, instance.duration(ops[next]) + tail[next]);
+                int m = machineOf[l];
+                int k = segments[m].length;
+                for(int y = 0 ; y < k ; y++) {
+                    int s = offset[m] + y;
+                    if(before[m][position[l] * k + y])
+                        q = Math.max(q, instance.duration(ops[s]) + tail[s]);
+                }
+                tail[l] = q;
+            }
+            return true;
+        }
+
+        /** Length of the longest path through the window, and one-machine bounds of the segments. */
+        private int lowerBound() {
+            int bound = 0;
+            for(int l = 0 ; l < size ; l++)
+                bound = Math.max(bound, head[l] + instance.duration(ops[l]) + tail[l]);
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                int k = segments[m].length;
+                if(k < 2)
+                    continue;
+                int[] r = new int[k];
+                int[] p = new int[k];
+                int[] q = new int[k];
+                for(int a = 0 ; a < k ; a++) {
+                    int l = offset[m] + a;
+                    r[a] = head[l];
+                    p[a] = instance.duration(ops[l]);
+                    q[a] = tail[l];
+                }
+                bound = Math.max(bound, LowerBound.jacksonPreemptive(r, p, q, k));
+            }
+            return bound;
+        }
+    }
+}
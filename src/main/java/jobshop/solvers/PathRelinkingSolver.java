@@ -0,0 +1,135 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.solvers.DescentSolver.Swap;
+import jobshop.solvers.GreedySolver.Priority;
+
+/** Path relinking between the solutions of an elite pool.
+ *
+ * The pool is initialized with the shifting bottleneck solution and randomized Giffler-Thompson constructions, each
+ * improved by a descent. Then, until the deadline, a walk goes from a random solution of the pool (the initiating
+ * solution) towards another one (the guiding solution) : each step swaps two adjacent tasks that are in the order of
+ * the initiating solution but not of the guiding one, choosing the best of a sample of such swaps. The best point of
+ * the walk strictly between its ends is improved by an iterated local search and offered to the pool.
+ */
+public class PathRelinkingSolver implements Solver {
+
+    /** Number of candidate swaps evaluated at each step of a walk. */
+    private static final int CANDIDATES = 30;
+    /** Width of the restricted candidate list of the constructions of the initial pool. */
+    private static final double ALPHA = 0.3;
+    /** Duration of the local search applied to the best point of each walk. */
+    private static final long IMPROVEMENT_MS = 50;
+
+    private final int poolSize;
+    private final long seed;
+
+    public PathRelinkingSolver() {
+        this(10, 0);
+    }
+
+    public PathRelinkingSolver(int poolSize, long seed) {
+        if(poolSize < 2)
+            throw new IllegalArgumentException("Relinking needs at least two solutions");
+        this.poolSize = poolSize;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        Random random = new Random(seed);
+        SplittableRandom constructions = new SplittableRandom(seed);
+        int lowerBound = LowerBound.of(instance);
+
+        ElitePool pool = new ElitePool(poolSize);
+        LongestPaths first = new LongestPaths(new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, deadline).schedule));
+        DescentSolver.descend(first, deadline, Integer.MAX_VALUE);
+        pool.offer(first.order, first.makespan());
+        for(int i = 0 ; i < 2 * poolSize && pool.size() < poolSize && System.currentTimeMillis() < deadline ; i++) {
+            LongestPaths paths = new LongestPaths(GifflerThompsonSolver.construct(instance, Priority.LRPT, ALPHA, constructions));
+            DescentSolver.descend(paths, deadline, Integer.MAX_VALUE);
+            pool.offer(paths.order, paths.makespan());
+        }
+
+        IteratedLocalSearchSolver ils = new IteratedLocalSearchSolver();
+        while(pool.size() >= 2 && pool.makespan(pool.best()) > lowerBound && System.currentTimeMillis() < deadline) {
+            int from = random.nextInt(pool.size());
+            int to = random.nextInt(pool.size() - 1);
+            if(to >= from)
+                to++;
+            ResourceOrder point = relink(pool.get(from), pool.get(to), random, deadline);
+            if(point == null)
+                continue;
+            Result improved = ils.solve(point, Math.min(deadline, System.currentTimeMillis() + IMPROVEMENT_MS), random, schedule -> {});
+            pool.offer(new ResourceOrder(improved.schedule), improved.schedule.makespan());
+        }
+
+        ResourceOrder best = pool.get(pool.best());
+        int makespan = pool.makespan(pool.best());
+        Result.ExitCause cause = makespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, best.toSchedule(), cause);
+    }
+
+    /** Walks from the initiating solution towards the guiding one. Returns the best solution strictly between them,
+     * or null if they are neighbors. */
+    static ResourceOrder relink(ResourceOrder initiating, ResourceOrder guiding, Random random, long deadline) {
+        Instance instance = initiating.instance;
+        int[] target = new int[instance.numOps];
+        for(int m = 0 ; m < instance.numMachines ; m++)
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                target[op(instance, guiding.tasksByMachine[m][i])] = i;
+
+        LongestPaths current = new LongestPaths(initiating.copy());
+        ResourceOrder best = null;
+        int bestMakespan = Integer.MAX_VALUE;
+        List<Swap> candidates = new ArrayList<>();
+        // each step fixes exactly one pair : stop before the last one, which would reach the guiding solution
+        int distance = ElitePool.distance(initiating, guiding);
+        for( ; distance > 1 && System.currentTimeMillis() < deadline ; distance--) {
+            // adjacent pairs in the wrong order with respect to the guiding solution
+            candidates.clear();
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                Task[] tasks = current.order.tasksByMachine[m];
+                for(int i = 0 ; i + 1 < instance.numJobs ; i++)
+                    if(target[op(instance, tasks[i])] > target[op(instance, tasks[i + 1])])
+                        candidates.add(new Swap(m, i, i + 1));
+            }
+            Swap chosen = null;
+            int chosenMakespan = Integer.MAX_VALUE;
+            for(int k = 0 ; k < CANDIDATES && !candidates.isEmpty() ; k++) {
+                Swap swap = candidates.remove(random.nextInt(candidates.size()));
+                if(!swap.applyOn(current))
+                    continue; // would create a cycle
+                int makespan = current.makespan();
+                swap.applyOn(current);
+                if(makespan < chosenMakespan) {
+                    chosenMakespan = makespan;
+                    chosen = swap;
+                }
+            }
+            if(chosen == null)
+                break; // every sampled swap creates a cycle
+            chosen.applyOn(current);
+            if(chosenMakespan < bestMakespan) {
+                bestMakespan = chosenMakespan;
+                best = current.order.copy();
+            }
+        }
+        return best;
+    }
+
+    private static int op(Instance instance, Task task) {
+        return instance.op(task.job, task.task);
+    }
+}
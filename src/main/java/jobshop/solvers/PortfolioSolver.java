@@ -0,0 +1,238 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.GreedySolver.Priority;
+
+/** Races several solvers on the same instance under a single deadline.
+ *
+ * The time until the deadline is cut in slices, run by a pool of threads. Each member of the portfolio first gets one
+ * slice, constructive members first. Then every slice goes to a local search drawn with a probability proportional to
+ * its recent rate of improvement, so that the members improving fastest get most of the CPU time. All local searches
+ * start their slice from the incumbent, the best solution found so far by any member, which is updated as soon as a
+ * member reports an improvement. The taboo search keeps its long-term memory and elite pool from one slice to the
+ * next, and only runs on one thread at a time.
+ */
+public class PortfolioSolver implements Solver {
+
+    /** Number of slices of each thread over the whole run. */
+    private static final int SLICES = 20;
+    private static final long MIN_SLICE_MS = 10;
+    /** Weight of the last slice in the moving average of the rate of improvement of a member. */
+    private static final double SMOOTHING = 0.5;
+    /** Probability of drawing a local search uniformly, so that none of them is starved. */
+    private static final double EXPLORATION = 0.1;
+
+    /** One run of a member until the deadline. Local searches start from the incumbent, constructive members
+     * ignore it. Improvements reported to the listener immediately update the incumbent.
+     * A new solver is created for each run, since some solvers keep their state in fields, except for the members
+     * resuming a search of the whole race. */
+    interface Search {
+        Result solve(Instance instance, ResourceOrder incumbent, long deadline, Random random, Consumer<Schedule> listener);
+    }
+
+    static class Member {
+        final String name;
+        /** false for constructive members, which only run once */
+        final boolean warmStart;
+        /** true for members whose state is shared by their slices, which never run on two threads at once */
+        final boolean exclusive;
+        final Search search;
+        boolean running;
+        /** smoothed improvement of the makespan per millisecond over the slices of this member */
+        double rate;
+        int slices;
+
+        Member(String name, boolean warmStart, Search search) {
+            this(name, warmStart, false, search);
+        }
+
+        Member(String name, boolean warmStart, boolean exclusive, Search search) {
+            this.name = name;
+            this.warmStart = warmStart;
+            this.exclusive = exclusive;
+            this.search = search;
+        }
+    }
+
+    private final int numThreads;
+    private final long seed;
+    /** Builds the taboo search of each race */
+    private final Supplier<TabooSolver> taboo;
+
+    public PortfolioSolver() {
+        this(Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    public PortfolioSolver(int numThreads, long seed) {
+        this(numThreads, seed, () -> new TabooSolver(Integer.MAX_VALUE, TabooSolver.DEFAULT_TENURE,
+                TabooSolver.DEFAULT_STAGNATION, TabooSolver.DEFAULT_PENALTY, TabooSolver.DEFAULT_ELITE, 0));
+    }
+
+    /** @param taboo builds the taboo search of each run, with its parameters */
+    public PortfolioSolver(int numThreads, long seed, Supplier<TabooSolver> taboo) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed");
+        this.numThreads = numThreads;
+        this.seed = seed;
+        this.taboo = taboo;
+    }
+
+    /** Members of the portfolio, in the order of the first round, with the given taboo search. */
+    static List<Member> members(TabooSolver taboo) {
+        List<Member> members = new ArrayList<>();
+        members.add(new Member("EST_LRPT", false, (instance, incumbent, deadline, random, listener) ->
+                new GreedySolver(Priority.EST_LRPT).solve(instance, deadline)));
+        members.add(new Member("gt", false, (instance, incumbent, deadline, random, listener) ->
+                new GifflerThompsonSolver(Priority.LRPT).solve(instance, deadline)));
+        members.add(new Member("shifting", false, (instance, incumbent, deadline, random, listener) ->
+                new ShiftingBottleneckSolver().solve(instance, deadline)));
+        members.add(new Member("descent", true, (instance, incumbent, deadline, random, listener) -> {
+            LongestPaths paths = new LongestPaths(incumbent.copy());
+            DescentSolver.descend(paths, deadline, Integer.MAX_VALUE);
+            return new Result(instance, paths.toSchedule(), Result.ExitCause.Blocked);
+        }));
+        members.add(new Member("taboo", true, true, (instance, incumbent, deadline, random, listener) ->
+                taboo.resume(incumbent, deadline, random, listener)));
+        members.add(new Member("annealing", true, (instance, incumbent, deadline, random, listener) ->
+                new SimulatedAnnealingSolver().solve(incumbent, deadline, random, listener)));
+        members.add(new Member("ils", true, (instance, incumbent, deadline, random, listener) ->
+                new IteratedLocalSearchSolver().solve(incumbent, deadline, random, listener)));
+        members.add(new Member("lns", true, (instance, incumbent, deadline, random, listener) ->
+                new LargeNeighborhoodSolver(LargeNeighborhoodSolver.DEFAULT_WINDOW_TASKS, 1, 0).solve(incumbent, deadline, random, listener)));
+        return members;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, schedule -> {});
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+        Race race = new Race(instance, members(taboo.get()), new Random(seed), listener);
+        long slice = Math.max(MIN_SLICE_MS, (deadline - System.currentTimeMillis()) / SLICES);
+        if(numThreads == 1) {
+            race.run(deadline, slice);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for(int i = 0 ; i < numThreads ; i++)
+                    futures.add(pool.submit(() -> race.run(deadline, slice)));
+                for(Future<?> future : futures)
+                    future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        Result.ExitCause cause = race.incumbentMakespan == race.lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, race.incumbent.toSchedule(), cause);
+    }
+
+    /** State shared by the threads of one run. */
+    private static class Race {
+        final Instance instance;
+        final int lowerBound;
+        final List<Member> members;
+        final Random random;
+        final Consumer<Schedule> listener;
+        /** index of the next member of the first round */
+        int nextFirst = 0;
+        ResourceOrder incumbent;
+        int incumbentMakespan = Integer.MAX_VALUE;
+
+        Race(Instance instance, List<Member> members, Random random, Consumer<Schedule> listener) {
+            this.instance = instance;
+            this.lowerBound = LowerBound.of(instance);
+            this.members = members;
+            this.random = random;
+            this.listener = listener;
+            // a solution to warm start from, even if a local search runs before any constructive member completes
+            improve(new BasicSolver().solve(instance, 0).schedule);
+        }
+
+        void run(long deadline, long slice) {
+            while(true) {
+                Member member;
+                ResourceOrder start;
+                int startMakespan;
+                Random stream;
+                synchronized (this) {
+                    if(incumbentMakespan == lowerBound || System.currentTimeMillis() >= deadline)
+                        return;
+                    member = next();
+                    member.running = true;
+                    start = incumbent.copy();
+                    startMakespan = incumbentMakespan;
+                    stream = new Random(random.nextLong());
+                }
+
+                long begin = System.currentTimeMillis();
+                Result result = member.search.solve(instance, start, Math.min(deadline, begin + slice), stream, this::improve);
+                long elapsed = Math.max(1, System.currentTimeMillis() - begin);
+
+                improve(result.schedule);
+                synchronized (this) {
+                    member.running = false;
+                    int makespan = result.schedule.makespan();
+                    double rate = Math.max(0, startMakespan - makespan) / (double) elapsed;
+                    member.rate = member.slices == 0 ? rate : SMOOTHING * rate + (1 - SMOOTHING) * member.rate;
+                    member.slices++;
+                }
+            }
+        }
+
+        /** Replaces the incumbent if the schedule is better. */
+        synchronized void improve(Schedule schedule) {
+            int makespan = schedule.makespan();
+            if(makespan < incumbentMakespan) {
+                incumbent = new ResourceOrder(schedule);
+                incumbentMakespan = makespan;
+                listener.accept(schedule);
+            }
+        }
+
+        /** Next member to run : the members of the first round in order, then a local search drawn by its rate. */
+        private Member next() {
+            if(nextFirst < members.size())
+                return members.get(nextFirst++);
+
+            List<Member> candidates = new ArrayList<>();
+            double total = 0;
+            for(Member member : members) {
+                if(member.warmStart && !(member.exclusive && member.running)) {
+                    candidates.add(member);
+                    total += member.rate;
+                }
+            }
+            if(total == 0 || random.nextDouble() < EXPLORATION)
+                return candidates.get(random.nextInt(candidates.size()));
+            double draw = random.nextDouble() * total;
+            for(Member member : candidates) {
+                draw -= member.rate;
+                if(draw < 0)
+                    return member;
+            }
+            return candidates.get(candidates.size() - 1);
+        }
+    }
+}
@@ -3,37 +3,122 @@ package jobshop.solvers;
 import jobshop.*;
 import jobshop.encodings.JobNumbers;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/** Evaluates random job-number sequences until the deadline and keeps the best one.
+ *
+ * The work can be split over several threads, each with its own random stream derived from the seed.
+ * For a given seed and number of threads, each thread always evaluates the same sequence of candidates,
+ * and ties between threads are broken by thread index, so that the result only depends on how many
+ * candidates each thread had time to evaluate (and not at all if an iteration limit is given). */
 public class RandomSolver implements Solver {
 
+    private final long seed;
+    private final int numThreads;
+    private final long maxIterationsPerThread;
+
+    /** Single threaded solver with seed 0. */
+    public RandomSolver() {
+        this(0, 1);
+    }
+
+    public RandomSolver(long seed, int numThreads) {
+        this(seed, numThreads, Long.MAX_VALUE);
+    }
+
+    /** @param maxIterationsPerThread number of candidates evaluated by each thread if the deadline is not met first. */
+    public RandomSolver(long seed, int numThreads, long maxIterationsPerThread) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed");
+        this.seed = seed;
+        this.numThreads = numThreads;
+        this.maxIterationsPerThread = maxIterationsPerThread;
+    }
+
     @Override
     public Result solve(Instance instance, long deadline) {
-        Random generator = new Random(0);
+        // one independent stream per thread, split in a fixed order from the seed
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[numThreads];
+        for(int i = 0 ; i < numThreads ; i++)
+            streams[i] = root.split();
+
+        // each thread stops on its own when it reaches the bound, which keeps the result deterministic
+        int lowerBound = LowerBound.of(instance);
+        int[][] bests = new int[numThreads][];
+        if(numThreads == 1) {
+            bests[0] = search(instance, deadline, lowerBound, streams[0]);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<int[]>> futures = new ArrayList<>();
+                for(int i = 0 ; i < numThreads ; i++) {
+                    SplittableRandom stream = streams[i];
+                    futures.add(pool.submit(() -> search(instance, deadline, lowerBound, stream)));
+                }
+                for(int i = 0 ; i < numThreads ; i++)
+                    bests[i] = futures.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        // merge : best makespan, lowest thread index in case of tie
+        JobNumbers.Scratch scratch = new JobNumbers.Scratch(instance);
+        int[] best = bests[0];
+        int bestMakespan = JobNumbers.evaluateMakespan(best, scratch);
+        for(int i = 1 ; i < numThreads ; i++) {
+            int makespan = JobNumbers.evaluateMakespan(bests[i], scratch);
+            if(makespan < bestMakespan) {
+                bestMakespan = makespan;
+                best = bests[i];
+            }
+        }
 
         JobNumbers sol = new JobNumbers(instance);
+        System.arraycopy(best, 0, sol.jobs, 0, best.length);
+        sol.nextToSet = best.length;
+
+        Result.ExitCause cause = bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, sol.toSchedule(), cause);
+    }
 
+    /** Evaluates random sequences drawn from the given stream until the deadline, returns the best one.
+     * Candidates are only evaluated with thread-local buffers, no schedule is built. */
+    private int[] search(Instance instance, long deadline, int lowerBound, SplittableRandom generator) {
+        int[] jobs = new int[instance.numJobs * instance.numTasks];
+        int next = 0;
         for(int j = 0 ; j<instance.numJobs ; j++) {
             for(int t = 0 ; t<instance.numTasks ; t++) {
-                sol.jobs[sol.nextToSet++] = j;
+                jobs[next++] = j;
             }
         }
-        Schedule best = sol.toSchedule();
-        while(deadline - System.currentTimeMillis() > 1) {
-            shuffleArray(sol.jobs, generator);
-            Schedule s = sol.toSchedule();
-            if(s.makespan() < best.makespan()) {
-                best = s;
+
+        JobNumbers.Scratch scratch = new JobNumbers.Scratch(instance);
+        int[] best = jobs.clone();
+        int bestMakespan = JobNumbers.evaluateMakespan(best, scratch);
+        long iterations = 0;
+        while(iterations++ < maxIterationsPerThread && bestMakespan > lowerBound && deadline - System.currentTimeMillis() > 1) {
+            shuffleArray(jobs, generator);
+            int makespan = JobNumbers.evaluateMakespan(jobs, scratch);
+            if(makespan < bestMakespan) {
+                bestMakespan = makespan;
+                System.arraycopy(jobs, 0, best, 0, best.length);
             }
         }
-
-
-        return new Result(instance, best, Result.ExitCause.Timeout);
+        return best;
     }
 
     /** Simple Fisher–Yates array shuffling */
-    private static void shuffleArray(int[] array, Random random)
+    private static void shuffleArray(int[] array, SplittableRandom random)
     {
         int index;
         for (int i = array.length - 1; i > 0; i--)
@@ -48,5 +133,3 @@ public class RandomSolver implements Solver {
         }
     }
 }
-
-
@@ -0,0 +1,378 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+/** Shifting bottleneck heuristic (Adams, Balas and Zawack).
+ *
+ * Machines are sequenced one at a time. At each step, the one-machine problem of every machine not yet sequenced is
+ * solved with the heads and tails given by the machines already sequenced, and the machine with the largest value
+ * (the bottleneck) is sequenced accordingly. Every machine sequenced before is then re-optimized once, with the
+ * other sequences fixed. One-machine problems are solved with Carlier's branch and bound, limited in number of nodes,
+ * on top of Schrage's heuristic.
+ *
+ * It is fast enough to be used as the starting point of the local searches.
+ */
+public class ShiftingBottleneckSolver implements Solver {
+
+    /** Maximal number of nodes of Carlier's branch and bound for one one-machine problem. */
+    private static final int CARLIER_NODES = 100;
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        Sequencer sequencer = new Sequencer(instance);
+        sequencer.run(deadline);
+
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int op : sequencer.sequences[m])
+                order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(instance.jobOf(op), instance.taskOf(op));
+        }
+        Result.ExitCause cause = sequencer.makespan == LowerBound.of(instance) ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
+    }
+
+    /** Partial selection of machine sequences, with the heads and tails it implies. */
+    private static final class Sequencer {
+        final Instance instance;
+        /** Operations executed on each machine, by job. */
+        final int[][] opsOn;
+        /** Sequence of each machine, null while the machine is not sequenced. */
+        final int[][] sequences;
+        final int[] machineNext;
+        final int[] head;
+        final int[] tail;
+        int makespan;
+
+        final OneMachine oneMachine;
+
+        // buffers of the longest paths computation
+        private final int[] inDegree;
+        private final int[] topological;
+
+        Sequencer(Instance instance) {
+            this.instance = instance;
+            int n = instance.numOps;
+            opsOn = new int[instance.numMachines][instance.numJobs];
+            int[] count = new int[instance.numMachines];
+            for(int op = 0 ; op < n ; op++)
+                opsOn[instance.machine(op)][count[instance.machine(op)]++] = op;
+            sequences = new int[instance.numMachines][];
+            machineNext = new int[n];
+            Arrays.fill(machineNext, -1);
+            head = new int[n];
+            tail = new int[n];
+            oneMachine = new OneMachine(instance.numJobs);
+            inDegree = new int[n];
+            topological = new int[n];
+        }
+
+        void run(long deadline) {
+            boolean acyclic = longestPaths();
+            assert acyclic;
+            for(int step = 0 ; step < instance.numMachines ; step++) {
+                boolean late = System.currentTimeMillis() > deadline;
+                int nodes = late ? 0 : CARLIER_NODES;
+
+                // bottleneck : the machine whose one-machine problem has the largest value
+                int bottleneck = -1;
+                int bottleneckValue = -1;
+                int[] bottleneckSequence = null;
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    if(sequences[m] != null)
+                        continue;
+                    int value = solveMachine(m, nodes);
+                    if(value > bottleneckValue) {
+                        bottleneck = m;
+                        bottleneckValue = value;
+                        bottleneckSequence = oneMachine.bestSequence();
+                    }
+                }
+                setSequence(bottleneck, bottleneckSequence);
+                if(!longestPaths()) {
+                    // Schrage's sequence follows the heads and tails, but ties (e.g. null durations) may still close
+                    // a cycle : the topological sequence never does
+                    solveMachine(bottleneck, 0);
+                    setSequence(bottleneck, oneMachine.bestSequence());
+                    if(!longestPaths())
+                        setTopologicalSequence(bottleneck);
+                }
+
+                if(late)
+                    continue;
+                // re-optimization of the machines sequenced before, keeping the new sequence only if not worse
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    if(sequences[m] == null || m == bottleneck)
+                        continue;
+                    int[] old = sequences[m];
+                    int oldMakespan = makespan;
+                    setSequence(m, null);
+                    longestPaths();
+                    solveMachine(m, nodes);
+                    setSequence(m, oneMachine.bestSequence());
+                    if(!longestPaths() || makespan > oldMakespan) {
+                        setSequence(m, old);
+                        if(!longestPaths())
+                            setTopologicalSequence(m);
+                    }
+                }
+            }
+        }
+
+        /** Solves the one-machine problem of machine m with the current heads and tails. Returns its value. */
+        private int solveMachine(int m, int maxNodes) {
+            int[] ops = opsOn[m];
+            for(int j = 0 ; j < ops.length ; j++)
+                oneMachine.set(j, ops[j], head[ops[j]], instance.duration(ops[j]), tail[ops[j]]);
+            return oneMachine.solve(maxNodes);
+        }
+
+        private void setSequence(int m, int[] sequence) {
+            if(sequences[m] != null)
+                for(int op : sequences[m])
+                    machineNext[op] = -1;
+            sequences[m] = sequence;
+            if(sequence != null)
+                for(int i = 0 ; i + 1 < sequence.length ; i++)
+                    machineNext[sequence[i]] = sequence[i + 1];
+        }
+
+        /** Sequences machine m in a topological order of the other arcs, which never creates a cycle.
+         * The arcs of the other machines must not contain a cycle. */
+        private void setTopologicalSequence(int m) {
+            setSequence(m, null);
+            boolean acyclic = longestPaths();
+            assert acyclic;
+            int[] position = new int[instance.numOps];
+            for(int i = 0 ; i < instance.numOps ; i++)
+                position[topological[i]] = i;
+            Integer[] ops = new Integer[opsOn[m].length];
+            for(int j = 0 ; j < ops.length ; j++)
+                ops[j] = opsOn[m][j];
+            Arrays.sort(ops, (a, b) -> Integer.compare(position[a], position[b]));
+            int[] sequence = new int[ops.length];
+            for(int j = 0 ; j < ops.length ; j++)
+                sequence[j] = ops[j];
+            setSequence(m, sequence);
+            longestPaths();
+        }
+
+        /** Heads, tails and makespan over the job arcs and the arcs of the sequenced machines.
+         * Returns false if these arcs contain a cycle. */
+        private boolean longestPaths() {
+            int n = instance.numOps;
+            Arrays.fill(inDegree, 0);
+            for(int op = 0 ; op < n ; op++) {
+                if(instance.nextInJob(op) != -1)
+                    inDegree[instance.nextInJob(op)]++;
+                if(machineNext[op] != -1)
+                    inDegree[machineNext[op]]++;
+            }
+            int size = 0;
+            for(int op = 0 ; op < n ; op++) {
+                head[op] = 0;
+                if(inDegree[op] == 0)
+                    topological[size++] = op;
+            }
+            for(int i = 0 ; i < size ; i++) {
+                int op = topological[i];
+                int end = head[op] + instance.duration(op);
+                for(int k = 0 ; k < 2 ; k++) {
+                    int s = k == 0 ? instance.nextInJob(op) : machineNext[op];
+                    if(s == -1)
+                        continue;
+                    head[s] = Math.max(head[s], end);
+                    if(--inDegree[s] == 0)
+                        topological[size++] = s;
+                }
+            }
+            if(size < n)
+                return false;
+
+            makespan = 0;
+            for(int i = n - 1 ; i >= 0 ; i--) {
+                int op = topological[i];
+                int q = 0;
+                for(int k = 0 ; k < 2 ; k++) {
+                    int s = k == 0 ? instance.nextInJob(op) : machineNext[op];
+                    if(s != -1)
+                        q = Math.max(q, instance.duration(s) + tail[s]);
+                }
+                tail[op] = q;
+                makespan = Math.max(makespan, head[op] + instance.duration(op) + q);
+            }
+            return true;
+        }
+    }
+
+    /** One-machine problem with heads and tails (minimizing max(start + duration + tail)), solved by Carlier's branch
+     * and bound. Each node is evaluated with Schrage's heuristic. */
+    static final class OneMachine {
+        final int n;
+        final int[] ops;
+        final int[] r;
+        final int[] p;
+        final int[] q;
+
+        private int nodes;
+        private int maxNodes;
+        private int bestValue;
+        private final int[] best;
+
+        // buffers of Schrage's heuristic
+        private final long[] byRelease;
+        private final int[] heap;
+        private final int[] sequence;
+        private final int[] start;
+
+        OneMachine(int n) {
+            this.n = n;
+            ops = new int[n];
+            r = new int[n];
+            p = new int[n];
+            q = new int[n];
+            best = new int[n];
+            byRelease = new long[n];
+            heap = new int[n];
+            sequence = new int[n];
+            start = new int[n];
+        }
+
+        void set(int i, int op, int head, int duration, int tail) {
+            ops[i] = op;
+            r[i] = head;
+            p[i] = duration;
+            q[i] = tail;
+        }
+
+        /** Solves the problem, exploring at most maxNodes nodes after the first Schrage sequence. Returns the value
+         * of the best sequence found. */
+        int solve(int maxNodes) {
+            this.nodes = 0;
+            this.maxNodes = maxNodes;
+            this.bestValue = Integer.MAX_VALUE;
+            carlier(0);
+            return bestValue;
+        }
+
+        /** Operations of the best sequence found. */
+        int[] bestSequence() {
+            int[] result = new int[n];
+            for(int i = 0 ; i < n ; i++)
+                result[i] = ops[best[i]];
+            return result;
+        }
+
+        private void carlier(int lowerBound) {
+            int value = schrage();
+            if(value < bestValue) {
+                bestValue = value;
+                System.arraycopy(sequence, 0, best, 0, n);
+            }
+            if(nodes++ >= maxNodes || lowerBound >= bestValue)
+                return;
+
+            // critical path : the last task b reaching the value, from the start a of its idle-free block
+            int b = n - 1;
+            while(start[sequence[b]] + p[sequence[b]] + q[sequence[b]] != value)
+                b--;
+            int a = b;
+            while(a > 0 && start[sequence[a - 1]] + p[sequence[a - 1]] == start[sequence[a]])
+                a--;
+            // critical task c : the last one of the path with a smaller tail than b
+            int c = b - 1;
+            while(c >= a && q[sequence[c]] >= q[sequence[b]])
+                c--;
+            if(c < a)
+                return; // the sequence is optimal
+
+            // J : the tasks after c on the critical path
+            int rJ = Integer.MAX_VALUE, qJ = Integer.MAX_VALUE, pJ = 0;
+            for(int i = c + 1 ; i <= b ; i++) {
+                int t = sequence[i];
+                rJ = Math.min(rJ, r[t]);
+                qJ = Math.min(qJ, q[t]);
+                pJ += p[t];
+            }
+            int tc = sequence[c];
+            int bound = Math.max(lowerBound, rJ + pJ + qJ);
+
+            // c after all tasks of J
+            int saved = r[tc];
+            r[tc] = Math.max(r[tc], rJ + pJ);
+            int left = Math.max(bound, Math.min(rJ, r[tc]) + pJ + p[tc] + Math.min(qJ, q[tc]));
+            if(left < bestValue)
+                carlier(left);
+            r[tc] = saved;
+
+            // c before all tasks of J
+            saved = q[tc];
+            q[tc] = Math.max(q[tc], qJ + pJ);
+            int right = Math.max(bound, Math.min(rJ, r[tc]) + pJ + p[tc] + Math.min(qJ, q[tc]));
+            if(right < bestValue)
+                carlier(right);
+            q[tc] = saved;
+        }
+
+        /** Schrage's heuristic : whenever the machine is free, starts the released task with the largest tail.
+         * Fills `sequence` and `start`, and returns the value of the sequence. */
+        private int schrage() {
+            for(int i = 0 ; i < n ; i++)
+                byRelease[i] = ((long) r[i] << 32) | i;
+            Arrays.sort(byRelease);
+
+            int heapSize = 0;
+            int next = 0;
+            int time = 0;
+            int value = 0;
+            for(int k = 0 ; k < n ; k++) {
+                if(heapSize == 0)
+                    time = Math.max(time, (int) (byRelease[next] >> 32));
+                while(next < n && (int) (byRelease[next] >> 32) <= time)
+                    heapSize = push(heapSize, (int) byRelease[next++]);
+                int t = heap[0];
+                heapSize = pop(heapSize);
+                sequence[k] = t;
+                start[t] = time;
+                time += p[t];
+                value = Math.max(value, time + q[t]);
+            }
+            return value;
+        }
+
+        /** Max-heap of tasks by tail. */
+        private int push(int size, int t) {
+            int i = size;
+            while(i > 0 && q[heap[(i - 1) / 2]] < q[t]) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heap[i] = t;
+            return size + 1;
+        }
+
+        private int pop(int size) {
+            int last = heap[--size];
+            int i = 0;
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= size)
+                    break;
+                if(child + 1 < size && q[heap[child + 1]] > q[heap[child]])
+                    child++;
+                if(q[heap[child]] <= q[last])
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package jobshop.solvers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.DescentSolver.Block;
+import jobshop.solvers.DescentSolver.Insertion;
+import jobshop.solvers.DescentSolver.Swap;
+
+/** Simulated annealing on the critical blocks of a ResourceOrder.
+ *
+ * Each iteration picks a random move on a random block of the critical path (swap at the border of the block or
+ * insertion of its first/last task), applies it incrementally and accepts it with the Metropolis criterion.
+ * The temperature decreases geometrically from an initial temperature calibrated on the instance to a final
+ * temperature reached exactly at the deadline. If the best solution does not improve for a number of iterations,
+ * the search can restart from the best solution with the temperature raised again (reheating).
+ * With an iteration budget, the cooling follows the iterations instead of the time, and the result only depends on
+ * the seed.
+ */
+public class SimulatedAnnealingSolver implements Solver {
+
+    /** Probability of accepting an average degrading move at the start of the search. */
+    private static final double INITIAL_ACCEPTANCE = 0.5;
+    /** Ratio between final and initial temperature. */
+    private static final double FINAL_RATIO = 0.001;
+    /** Number of iterations between two updates of the temperature. */
+    private static final int TEMPERATURE_UPDATE = 256;
+
+    /** Default number of iterations without improvement before reheating */
+    public static final int DEFAULT_STAGNATION = 100000;
+
+    private final long seed;
+    /** Number of iterations without improvement of the best solution before reheating, 0 to disable reheating. */
+    private final int stagnation;
+    /** Number of iterations, Long.MAX_VALUE to run until the deadline. */
+    private final long maxIter;
+
+    public SimulatedAnnealingSolver() {
+        this(0, DEFAULT_STAGNATION);
+    }
+
+    public SimulatedAnnealingSolver(long seed, int stagnation) {
+        this(seed, stagnation, Long.MAX_VALUE);
+    }
+
+    public SimulatedAnnealingSolver(long seed, int stagnation, long maxIter) {
+        this.seed = seed;
+        this.stagnation = stagnation;
+        this.maxIter = maxIter;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, schedule -> {});
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+        Random random = new Random(seed);
+        // the annealing does not depend much on its starting point : start from the instantaneous basic solution
+        ResourceOrder initial = new ResourceOrder(new BasicSolver().solve(instance, deadline).schedule);
+        return solve(initial, deadline, random, listener);
+    }
+
+    /** Runs the annealing from the given solution until the deadline or the end of the iteration budget. */
+    Result solve(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener) {
+        Instance instance = initial.instance;
+        int lowerBound = LowerBound.of(instance);
+        LongestPaths current = new LongestPaths(initial.copy());
+        int currentMakespan = current.makespan();
+
+        ResourceOrder best = current.order.copy();
+        int bestMakespan = currentMakespan;
+        listener.accept(best.toSchedule());
+
+        double initialTemperature = calibrate(current, random);
+        double temperature = initialTemperature;
+        long segmentStart = System.currentTimeMillis();
+        long segmentIter = 0;
+        long lastImprovement = 0;
+
+        List<Block> blocks = DescentSolver.blocksOfCriticalPath(current.order, current.criticalPath());
+        for(long iter = 0 ; iter < maxIter ; iter++) {
+            if(iter % TEMPERATURE_UPDATE == 0) {
+                long now = System.currentTimeMillis();
+                if(now >= deadline)
+                    break;
+                // geometric cooling, calibrated so that the final temperature is reached at the end of the budget
+                double progress = maxIter == Long.MAX_VALUE
+                        ? (now - segmentStart) / (double) Math.max(1, deadline - segmentStart)
+                        : (iter - segmentIter) / (double) Math.max(1, maxIter - segmentIter);
+                temperature = initialTemperature * Math.pow(FINAL_RATIO, progress);
+            }
+            if(blocks.isEmpty() || bestMakespan == lowerBound)
+                break; // the solution is optimal
+
+            if(stagnation > 0 && iter - lastImprovement > stagnation) {
+                // reheat : restart from the best solution with a fresh cooling schedule over the remaining time
+                current = new LongestPaths(best.copy());
+                currentMakespan = bestMakespan;
+                blocks = DescentSolver.blocksOfCriticalPath(current.order, current.criticalPath());
+                segmentStart = System.currentTimeMillis();
+                segmentIter = iter;
+                lastImprovement = iter;
+                continue;
+            }
+
+            Block block = blocks.get(random.nextInt(blocks.size()));
+            Move move = randomMove(block, current, random);
+            if(move == null)
+                continue;
+
+            move.apply(current);
+            int makespan = current.makespan();
+            int delta = makespan - currentMakespan;
+            if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                currentMakespan = makespan;
+                // even when the makespan is unchanged, the critical path may have moved
+                blocks = DescentSolver.blocksOfCriticalPath(current.order, current.criticalPath());
+                if(makespan < bestMakespan) {
+                    bestMakespan = makespan;
+                    best = current.order.copy();
+                    listener.accept(best.toSchedule());
+                    lastImprovement = iter;
+                }
+            } else {
+                move.undo(current);
+            }
+        }
+
+        Result.ExitCause cause = bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, best.toSchedule(), cause);
+    }
+
+    /** Initial temperature such that an average degrading move is accepted with probability INITIAL_ACCEPTANCE. */
+    private double calibrate(LongestPaths current, Random random) {
+        int makespan = current.makespan();
+        List<Block> blocks = DescentSolver.blocksOfCriticalPath(current.order, current.criticalPath());
+        long sum = 0;
+        int count = 0;
+        for(int i = 0 ; i < 100 && !blocks.isEmpty() ; i++) {
+            Move move = randomMove(blocks.get(random.nextInt(blocks.size())), current, random);
+            if(move == null)
+                continue;
+            move.apply(current);
+            int delta = current.makespan() - makespan;
+            move.undo(current);
+            if(delta > 0) {
+                sum += delta;
+                count++;
+            }
+        }
+        double averageDelta = count == 0 ? 1 : sum / (double) count;
+        return -averageDelta / Math.log(INITIAL_ACCEPTANCE);
+    }
+
+    /** Draws a random move on the block : a swap at one of its borders or a feasible insertion.
+     * Returns null if the drawn insertion may create a cycle. */
+    private static Move randomMove(Block block, LongestPaths current, Random random) {
+        List<Swap> swaps = DescentSolver.neighbors(block);
+        List<Insertion> insertions = DescentSolver.insertions(block);
+        int k = random.nextInt(swaps.size() + insertions.size());
+        if(k < swaps.size()) {
+            Swap swap = swaps.get(k);
+            return new Move(swap.machine, swap.t1, swap.t2, true);
+        }
+        Insertion insertion = insertions.get(k - swaps.size());
+        if(!insertion.isFeasible(current))
+            return null;
+        return new Move(insertion.machine, insertion.from, insertion.to, false);
+    }
+
+    /** A swap or an insertion, that can be undone. */
+    private static final class Move {
+        final int machine;
+        final int from;
+        final int to;
+        final boolean swap;
+
+        Move(int machine, int from, int to, boolean swap) {
+            this.machine = machine;
+            this.from = from;
+            this.to = to;
+            this.swap = swap;
+        }
+
+        void apply(LongestPaths paths) {
+            boolean applied = swap ? paths.swap(machine, from, to) : paths.insert(machine, from, to);
+            assert applied;
+        }
+
+        void undo(LongestPaths paths) {
+            boolean undone = swap ? paths.swap(machine, from, to) : paths.insert(machine, to, from);
+            assert undone;
+        }
+    }
+}
@@ -1,28 +1,73 @@
 package jobshop.solvers;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
 
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
 import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.encodings.LongestPaths;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Task;
 import jobshop.solvers.DescentSolver.Block;
 import jobshop.solvers.DescentSolver.Swap;
-import jobshop.solvers.GreedySolver.Priority;
 
+/** Taboo search on the swaps of the critical blocks.
+ *
+ * Besides the short-term memory forbidding the reversal of recently swapped arcs, a long-term memory counts how often
+ * each machine arc has been reversed : non-improving moves are penalized by this frequency, which pushes the search
+ * towards arcs it has rarely changed. After `stagnation` iterations without improvement of the best solution, or when
+ * no move is admissible, the search restarts from a solution of an elite pool of the best solutions found.
+ *
+ * The search stops at the deadline, at the maximal number of iterations or at the lower bound. The two-argument
+ * constructor keeps the plain taboo search : no penalty, no restart, and a stop when no move is admissible.
+ */
 public class TabooSolver implements Solver {
+
+	/** Default parameters, used by `Main`, the portfolio and as the reference configuration of the tuner */
+	public static final int DEFAULT_TENURE = 10;
+	public static final int DEFAULT_STAGNATION = 3000;
+	public static final double DEFAULT_PENALTY = 0.5;
+	public static final int DEFAULT_ELITE = 5;
 	
 	private int maxIter;
 	private int maxTime;
+	private int stagnation;
+	private double penalty;
+	private int eliteSize;
+	private long seed;
+	// whether the search restarts from an elite solution, instead of stopping, when no move is admissible
+	private boolean restartWhenBlocked = true;
+	// sTaboo[op][job] : first iteration at which op may again be swapped with the task of job following it on its machine
 	private int[][] sTaboo ; 
+	// frequency[op][job] : number of swaps of op with the task of job following it on its machine
+	private int[][] frequency ; 
+	// best solutions found, for restarts
+	private ElitePool elite;
+	// instance of the long-term memory (frequency and elite), kept between resumed runs
+	private Instance memoryInstance;
 
 	
 	public TabooSolver(int maxIter, int maxTime) {
+		this(maxIter, maxTime, Integer.MAX_VALUE, 0, 1, 0);
+		this.restartWhenBlocked = false;
+	}
+
+	/** @param stagnation iterations without improvement of the best solution before a restart
+	 *  @param penalty weight of the reversal frequency of an arc in the evaluation of non-improving moves, 0 to disable it
+	 *  @param eliteSize number of best solutions kept for restarts */
+	public TabooSolver(int maxIter, int maxTime, int stagnation, double penalty, int eliteSize, long seed) {
 		super();
 		this.maxIter = maxIter;
 		this.maxTime = maxTime;
+		this.stagnation = stagnation;
+		this.penalty = penalty;
+		this.eliteSize = eliteSize;
+		this.seed = seed;
 	}
 
    
@@ -30,37 +75,64 @@ public class TabooSolver implements Solver {
 
     @Override
     public Result solve(Instance instance, long deadline) {
+    	return solve(instance, deadline, schedule -> {});
+    }
 
-    	 this.sTaboo = new int[instance.numJobs * instance.numTasks][instance.numJobs * instance.numTasks] ;
-         // int debut_makespan = sol_ini.makespan(); 
-          //System.out.println("debut");
-          //System.out.println(debut_makespan);
-
-          for(int i = 0 ; i<(instance.numJobs * instance.numTasks) ; i++)
-          {
-              for(int j = 0 ; j<(instance.numJobs * instance.numTasks) ; j++)
-              {
-                  sTaboo[i][j] = 0;
-              }
-          }
-    	GreedySolver first_solver = new GreedySolver(Priority.EST_SPT);
+    @Override
+    public Result solve(Instance instance, long deadline, Consumer<Schedule> listener) {
+
+    	ShiftingBottleneckSolver first_solver = new ShiftingBottleneckSolver();
     	//RandomSolver first_solver = new RandomSolver();
     	Result first_soluce = first_solver.solve(instance, deadline);
-        
-    	//to return
-    	Result best_current_soluce = first_soluce;
     	
-    	Schedule current_schedule = best_current_soluce.schedule;
+    	return solve(new ResourceOrder(first_soluce.schedule), deadline, new Random(seed), listener);
+    }
+
+    /** Runs the search from the given solution, which lets the search be measured apart from its initial solution. */
+    public Result solve(ResourceOrder initial, long deadline) {
+    	return solve(initial, deadline, new Random(seed), schedule -> {});
+    }
+
+    /** Runs the search from the given solution until the deadline or the maximal number of iterations. */
+    Result solve(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener) {
+    	return solve(initial, deadline, random, listener, false);
+    }
+
+    /** Same as `solve`, keeping the long-term memory (arc frequencies and elite pool) of the previous runs of this
+     * solver on the same instance : successive time slices of a portfolio then make one diversified search. */
+    Result resume(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener) {
+    	return solve(initial, deadline, random, listener, true);
+    }
+
+    private Result solve(ResourceOrder initial, long deadline, Random random, Consumer<Schedule> listener, boolean resume) {
+
+    	 Instance instance = initial.instance;
+    	 this.sTaboo = new int[instance.numJobs * instance.numTasks][instance.numJobs] ;
+    	 if(!resume || memoryInstance != instance) {
+    		 this.frequency = new int[instance.numJobs * instance.numTasks][instance.numJobs] ;
+    		 this.elite = new ElitePool(eliteSize);
+    		 this.memoryInstance = instance;
+    	 }
     	
-    	ResourceOrder current_r_order = new ResourceOrder(current_schedule);
-    	int current_makespan = current_schedule.makespan();
+    	ResourceOrder current_r_order = initial.copy();
+    	// heads and tails of current_r_order, updated incrementally after each applied swap
+    	LongestPaths current_paths = new LongestPaths(current_r_order);
+    	ResourceOrder.Scratch scratch = new ResourceOrder.Scratch(instance);
+    	int current_makespan = current_paths.makespan();
     	int current_makespan_taboo = current_makespan;
+    	int lower_bound = LowerBound.of(instance);
+    	
+    	ResourceOrder best_r_order = current_r_order.copy();
+    	listener.accept(best_r_order.toSchedule());
+    	int best_makespan = current_makespan;
+    	elite.offer(best_r_order, best_makespan);
+    	int last_improvement = 0;
     	
     	boolean can_continue = true;
     	
     	int iter = 0;
     	
-    	while(iter < maxIter && can_continue)
+    	while(iter < maxIter && best_makespan > lower_bound && System.currentTimeMillis() < deadline)
     	{
     		iter++;
     		can_continue = false;
@@ -70,18 +142,16 @@ public class TabooSolver implements Solver {
     		
     		Swap best_swap = null;
     		
-    		ResourceOrder local_taboo_r_order = current_r_order.copy();
-    		
     		//when there is a non taboo solution
     		boolean makespan_swaps_is_not_initialized = true;
-    		int current_makespan_swaps = -1;
+    		double current_makespan_swaps = -1;
+    		int best_swap_makespan = -1;
     		boolean valid_swap_found = false;
     		
     		Swap best_swap_taboo = null;
-    		ResourceOrder local_r_order = current_r_order.copy();
     		
     		//to cover all neighbors
-    		List<Block> all_blocks = DescentSolver.blocksOfCriticalPath(current_r_order);
+    		List<Block> all_blocks = DescentSolver.blocksOfCriticalPath(current_r_order, current_paths.criticalPath());
         	int numb_blocks = all_blocks.size();
         	
         	for(int b = 0 ; b < numb_blocks ; b++)
@@ -92,61 +162,57 @@ public class TabooSolver implements Solver {
         		for(int s = 0 ; s < numb_swaps ; s++)
         		{
         			//for this neighbor
-        			ResourceOrder new_r_order = current_r_order.copy();
-        			
         			Swap current_swap = all_current_swaps.get(s);
         			
         			
-        			boolean is_taboo = check_taboo(current_swap, iter, new_r_order);
-        			
-        			
+        			boolean is_taboo = check_taboo(current_swap, iter, current_r_order);
         			
-        			current_swap.applyOn(new_r_order);
         			
-        			Schedule new_schedule = new_r_order.toSchedule();
+        			// -1 if the neighbor contains a cycle, which only moves without feasibility guarantee can create
+        			int new_makespan = DescentSolver.evaluate(current_swap, current_r_order, scratch);
         			
         			//checking and choices
-        			if(new_schedule != null)
+        			if(new_makespan >= 0)
         			{
-        				if(new_schedule.isValid())
-        				{
-        					int new_makespan = new_schedule.makespan();
-        					
-        					if(!is_taboo)
+        				
+        				if(!is_taboo)
+                		{
+        					//current_makespan_taboo already initialized with last makespan
+        					//for each better neighbor (valid and taboo)
+        					if(new_makespan < current_makespan_taboo)
+            				{
+            					current_makespan_taboo = new_makespan;
+            					better_taboo_found = true;
+            					
+            					best_swap_taboo = current_swap;
+            					
+            				}
+                		}
+                		else
+                		{
+                			// non-improving moves are penalized by how often the arc was already reversed
+                			double evaluation = new_makespan;
+                			if(new_makespan >= current_makespan)
+                				evaluation += penalty * frequency(current_swap, current_r_order);
+                			
+                			//made only for the first neighbor (valid and non-taboo)
+                			if(makespan_swaps_is_not_initialized)
                 			{
-        						//current_makespan_taboo already initialized with last makespan
-        						//for each better neighbor (valid and taboo)
-        						if(new_makespan < current_makespan_taboo)
-            					{
-            						local_taboo_r_order = new_r_order;
-            						current_makespan_taboo = new_makespan;
-            						better_taboo_found = true;
-            						
-            						best_swap_taboo = current_swap;
-            						
-            					}
-                			}
-                			else
-                			{
-                				//made only for the first neighbor (valid and non-taboo)
-                				if(makespan_swaps_is_not_initialized)
-                				{
-                					current_makespan_swaps = new_makespan;
-                					makespan_swaps_is_not_initialized = false;
-                				}
-                				
-                				//for each better neighbor (valid and non-taboo)
-                				if(new_makespan <= current_makespan_swaps)
-            					{
-            						local_r_order = new_r_order;
-            						current_makespan_swaps = new_makespan;
-            						valid_swap_found = true;
-            						best_swap = current_swap;
-            						
-            					}
+                				current_makespan_swaps = evaluation;
+                				makespan_swaps_is_not_initialized = false;
                 			}
+                			
+                			//for each better neighbor (valid and non-taboo)
+                			if(evaluation <= current_makespan_swaps)
+            				{
+            					current_makespan_swaps = evaluation;
+            					best_swap_makespan = new_makespan;
+            					valid_swap_found = true;
+            					best_swap = current_swap;
+            					
+            				}
+                		}
 
-        				}
         			}//end checking
         			
         			
@@ -159,23 +225,53 @@ public class TabooSolver implements Solver {
         	{
         		if(valid_swap_found)
         		{
-        			current_r_order = local_r_order;
-        			current_makespan = current_makespan_swaps;
-        			addTaboo(best_swap, local_r_order, iter);
+        			current_paths.swap(best_swap.machine, best_swap.t1, best_swap.t2);
+        			current_makespan = best_swap_makespan;
+        			addTaboo(best_swap, current_r_order, iter);
         		}
         		else
         		{
-        			current_r_order = local_taboo_r_order;
+        			current_paths.swap(best_swap_taboo.machine, best_swap_taboo.t1, best_swap_taboo.t2);
         			current_makespan = current_makespan_taboo;
-        			addTaboo(best_swap_taboo, local_taboo_r_order, iter);
+        			addTaboo(best_swap_taboo, current_r_order, iter);
+        		}
+        		assert current_paths.makespan() == current_makespan;
+        		
+        		if(current_makespan < best_makespan)
+        		{
+        			best_makespan = current_makespan;
+        			best_r_order = current_r_order.copy();
+        			listener.accept(best_r_order.toSchedule());
+        			elite.offer(best_r_order, best_makespan);
+        			last_improvement = iter;
         		}
         	}
         	
+        	if(!can_continue && !restartWhenBlocked)
+        		break;
+        	if(!can_continue || iter - last_improvement > stagnation)
+        	{
+        		// restart from an elite solution with an empty short-term memory, the frequencies are kept
+        		current_r_order = elite.get(random.nextInt(elite.size()));
+        		current_paths = new LongestPaths(current_r_order);
+        		current_makespan = current_paths.makespan();
+        		for(int[] row : sTaboo)
+        			Arrays.fill(row, 0);
+        		last_improvement = iter;
+        	}
+        	
         	current_makespan_taboo = current_makespan;
         	
     	}//end while
     	
-    	best_current_soluce = new Result(best_current_soluce.instance, current_r_order.toSchedule(), best_current_soluce.cause);
+    	Result.ExitCause cause;
+    	if(best_makespan == lower_bound)
+    		cause = Result.ExitCause.ProvedOptimal;
+    	else if(!can_continue && !restartWhenBlocked)
+    		cause = Result.ExitCause.Blocked;
+    	else
+    		cause = Result.ExitCause.Timeout;
+    	Result best_current_soluce = new Result(instance, best_r_order.toSchedule(), cause);
     	
     	return best_current_soluce;
     }
@@ -183,13 +279,22 @@ public class TabooSolver implements Solver {
     private void addTaboo(Swap swap, ResourceOrder order, int k) {
 		Task task1 = order.tasksByMachine[swap.machine][swap.t1] ; 
 		Task task2 = order.tasksByMachine[swap.machine][swap.t2] ; 
-		sTaboo[task2.job * order.instance.numTasks+task2.task][task1.job * order.instance.numTasks + task1.task] = k + this.maxTime ; 		
+		// called once the swap is applied : task1 now precedes task2, swapping them back is forbidden for a while
+		sTaboo[task1.job * order.instance.numTasks+task1.task][task2.job] = k + this.maxTime ; 		
+		frequency[task2.job * order.instance.numTasks+task2.task][task1.job]++ ;
 	}
     
     private boolean check_taboo(Swap swap, int k, ResourceOrder order) {
     	Task task1 = order.tasksByMachine[swap.machine][swap.t1] ; 
 		Task task2 = order.tasksByMachine[swap.machine][swap.t2] ; 
-		return k >= sTaboo[task1.job * order.instance.numTasks + task1.task][task2.job * order.instance.numTasks+task2.task] ;
+		return k >= sTaboo[task1.job * order.instance.numTasks + task1.task][task2.job] ;
+    }
+
+    // number of times the arc reversed by the swap was already reversed
+    private int frequency(Swap swap, ResourceOrder order) {
+    	Task task1 = order.tasksByMachine[swap.machine][swap.t1] ; 
+		Task task2 = order.tasksByMachine[swap.machine][swap.t2] ; 
+		return frequency[task1.job * order.instance.numTasks + task1.task][task2.job] ;
     }
 
 
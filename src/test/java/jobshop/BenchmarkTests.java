@@ -0,0 +1,62 @@
+package jobshop;
+
+import jobshop.solvers.BasicSolver;
+import jobshop.solvers.ShiftingBottleneckSolver;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.LongFunction;
+
+public class BenchmarkTests {
+
+    @Test
+    public void testWilcoxon() {
+        assert Math.abs(Statistics.normalCdf(0) - 0.5) < 1e-6;
+        assert Math.abs(Statistics.normalCdf(1.96) - 0.975) < 1e-4;
+
+        double[] a = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assert Statistics.wilcoxon(a, a) == 1;
+        // all ten differences have the same sign : exact p-value 0.002, 0.005 with the normal approximation
+        double[] b = a.clone();
+        for(int i = 0 ; i < b.length ; i++)
+            b[i] += i + 1;
+        double p = Statistics.wilcoxon(a, b);
+        assert p < 0.01;
+        assert Statistics.wilcoxon(b, a) == p;
+        // alternating signs : no difference
+        double[] c = a.clone();
+        for(int i = 0 ; i < c.length ; i++)
+            c[i] += i % 2 == 0 ? 1 : -1;
+        assert Statistics.wilcoxon(a, c) > 0.5;
+    }
+
+    @Test
+    public void testBenchmark() throws Exception {
+        HashMap<String, LongFunction<Solver>> solvers = new HashMap<>();
+        solvers.put("basic", seed -> new BasicSolver());
+        solvers.put("shifting", seed -> new ShiftingBottleneckSolver());
+        Benchmark benchmark = new Benchmark(solvers, Arrays.asList("basic", "shifting"), Arrays.asList("ft06", "la01"), 1000, 3, 5);
+        benchmark.run(2);
+
+        assert benchmark.runs.size() == 2 * 2 * 3;
+        assert benchmark.runsOf("shifting", "la01").size() == 3;
+        // deterministic solvers : the same makespan for every seed
+        for(Benchmark.Run run : benchmark.runsOf("basic", "ft06"))
+            assert run.makespan == benchmark.runsOf("basic", "ft06").get(0).makespan;
+        // shifting bottleneck is optimal on la01 and reaches the target, the basic solver does not
+        assert benchmark.runsOf("shifting", "la01").get(0).timeToTarget >= 0;
+        assert benchmark.runsOf("basic", "la01").get(0).timeToTarget < 0;
+
+        Path json = Files.createTempFile("benchmark", ".json");
+        try {
+            benchmark.writeJson(json, "basic");
+            String content = new String(Files.readAllBytes(json));
+            assert content.contains("\"runs\"") && content.contains("\"p_value\"");
+        } finally {
+            Files.delete(json);
+        }
+    }
+}
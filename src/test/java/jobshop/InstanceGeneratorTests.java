@@ -0,0 +1,47 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class InstanceGeneratorTests {
+
+    @Test
+    public void testReproducesTaillard() throws IOException {
+        // seeds of ta01 as given in Taillard's paper
+        Instance generated = new InstanceGenerator(15, 15).generate(840612802, 398197754);
+        Instance ta01 = Instance.fromFile(Paths.get("instances/ta01"));
+
+        assert generated.numJobs == ta01.numJobs && generated.numTasks == ta01.numTasks;
+        for(int j = 0 ; j < ta01.numJobs ; j++) {
+            for(int t = 0 ; t < ta01.numTasks ; t++) {
+                assert generated.machine(j, t) == ta01.machine(j, t);
+                assert generated.duration(j, t) == ta01.duration(j, t);
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        InstanceGenerator generator = new InstanceGenerator(50, 10, 5, 500, InstanceGenerator.Distribution.MACHINE_CORRELATED);
+        Instance instance = generator.generate(12345, 67890);
+
+        Path file = Files.createTempFile("generated", "");
+        try {
+            instance.toFile(file, "test instance");
+            Instance read = Instance.fromFile(file);
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    assert read.machine(j, t) == instance.machine(j, t);
+                    assert read.duration(j, t) == instance.duration(j, t);
+                    assert instance.duration(j, t) >= 5 && instance.duration(j, t) <= 500;
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
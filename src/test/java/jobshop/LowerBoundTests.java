@@ -0,0 +1,36 @@
+package jobshop;
+
+import jobshop.solvers.SimulatedAnnealingSolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class LowerBoundTests {
+
+    @Test
+    public void testBounds() throws IOException {
+        // la01 is machine-bound : its optimum is the load of its most loaded machine
+        Instance la01 = Instance.fromFile(Paths.get("instances/la01"));
+        assert LowerBound.maxMachineLoad(la01) == 666;
+        assert LowerBound.of(la01) == 666;
+
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        assert LowerBound.of(ft06) >= LowerBound.maxJobLength(ft06);
+        assert LowerBound.of(ft06) <= BestKnownResult.of("ft06");
+
+        // two tasks released at 0 and 1 : the second one, with a longer tail, preempts the first one
+        int[] r = {0, 1};
+        int[] p = {3, 2};
+        int[] q = {0, 5};
+        assert LowerBound.jacksonPreemptive(r, p, q, 2) == 8;
+    }
+
+    @Test
+    public void testEarlyTermination() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la01"));
+        Result result = new SimulatedAnnealingSolver().solve(instance, System.currentTimeMillis() + 10000);
+        assert result.cause == Result.ExitCause.ProvedOptimal;
+        assert result.schedule.makespan() == 666;
+    }
+}
@@ -0,0 +1,40 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class RegressionTests {
+
+    @Test
+    public void testCompare() throws Exception {
+        Map<String, Double> baseline = new TreeMap<>();
+        baseline.put("throughput.decodes_per_s.ft10", 1000.0);
+        baseline.put("makespan.taboo.ft10", 1000.0);
+
+        Map<String, Double> metrics = new TreeMap<>(baseline);
+        metrics.put("throughput.decodes_per_s.ft10", 850.0); // slower, within the tolerance
+        metrics.put("makespan.taboo.ft10", 990.0); // better
+        metrics.put("makespan.ils.ft10", 2000.0); // not in the baseline
+        assert Regression.compare(baseline, metrics, 0.2, 0.01, null).isEmpty();
+
+        metrics.put("throughput.decodes_per_s.ft10", 700.0);
+        metrics.put("makespan.taboo.ft10", 1020.0);
+        List<String> failures = Regression.compare(baseline, metrics, 0.2, 0.01, null);
+        assert failures.size() == 2;
+        assert failures.get(0).startsWith("makespan.taboo.ft10");
+
+        // the baseline survives a round trip through its file
+        Path file = Files.createTempFile("baseline", ".properties");
+        try {
+            Regression.store(file, metrics);
+            assert Regression.load(file).equals(metrics);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ServerTests {
+
+    @Test
+    public void testSolveRequests() throws Exception {
+        try(Server server = new Server(0, 2, 1).start();
+            Client client = new Client(server.port())) {
+            Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+
+            // by name, with the improvements streamed before the result
+            List<String> lines = new ArrayList<>();
+            Client.Response response = client.solve("taboo", 500, 0, "ft06", lines::add);
+            assert lines.get(0).equals("ACCEPTED " + response.id);
+            assert lines.get(1).startsWith("IMPROVED " + response.id + " ");
+            assert lines.get(lines.size() - 1).startsWith("RESULT " + response.id + " ");
+            Schedule schedule = Schedule.wrap(ft06, response.startTimes);
+            assert schedule.isValid();
+            assert schedule.makespan() == response.makespan;
+
+            // inline
+            response = client.solve("shifting", 1000, 0, Files.readAllLines(Paths.get("instances/ft06")), line -> {});
+            assert Schedule.wrap(ft06, response.startTimes).isValid();
+
+            try {
+                client.solve("unknown", 1000, 0, "ft06", line -> {});
+                assert false;
+            } catch (IOException e) {
+                assert e.getMessage().startsWith("unknown solver");
+            }
+            // the connection is still usable after an error
+            assert client.solve("basic", 1000, 0, "ft06", line -> {}).startTimes.length == ft06.numOps;
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        try(Server server = new Server(0, 1, 1).start();
+            Client first = new Client(server.port());
+            Client second = new Client(server.port());
+            Client third = new Client(server.port())) {
+            // the only worker and the only place in the queue are taken by the first two requests
+            CountDownLatch firstAccepted = new CountDownLatch(1);
+            Thread running = new Thread(() -> {
+                try {
+                    first.solve("random", 2000, 0, "la01", line -> {
+                        if(line.startsWith("ACCEPTED"))
+                            firstAccepted.countDown();
+                    });
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            running.start();
+            firstAccepted.await();
+            CountDownLatch secondAccepted = new CountDownLatch(1);
+            Thread waiting = new Thread(() -> {
+                try {
+                    second.solve("basic", 5000, 0, "la01", line -> {
+                        if(line.startsWith("ACCEPTED"))
+                            secondAccepted.countDown();
+                    });
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            waiting.start();
+            secondAccepted.await();
+            try {
+                third.solve("basic", 1000, 0, "la01", line -> {});
+                assert false;
+            } catch (IOException e) {
+                assert e.getMessage().startsWith("server busy");
+            }
+            running.join();
+            waiting.join();
+            // and served once the worker is free
+            assert third.solve("basic", 1000, 0, "la01", line -> {}).makespan > 0;
+        }
+    }
+}
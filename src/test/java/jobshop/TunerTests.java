@@ -0,0 +1,58 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TunerTests {
+
+    @Test
+    public void testStatistics() {
+        double[] values = {3, 1, 3, 2};
+        assert Arrays.equals(Statistics.ranks(values), new double[] {3.5, 1, 3.5, 2});
+        assert Statistics.mean(values) == 2.25;
+        assert Statistics.median(values) == 2.5;
+        assert Math.abs(Statistics.std(new double[] {2, 4, 4, 4, 5, 5, 7, 9}) - 2.138) < 0.001;
+
+        // tabulated quantiles
+        assert Math.abs(Statistics.chiSquare95(4) - 9.488) < 0.05;
+        assert Math.abs(Statistics.student975(10) - 2.228) < 0.01;
+
+        // identical results : no difference
+        assert Statistics.friedman(new double[][] {{1, 1, 1}, {2, 2, 2}, {3, 3, 3}}) == null;
+        // the first treatment is always the best and the last one always the worst
+        double[][] results = new double[6][];
+        for(int b = 0 ; b < 6 ; b++)
+            results[b] = new double[] {b, b + 1 + (b % 2), b + 2 - (b % 2), b + 5};
+        boolean[] worse = Statistics.friedman(results);
+        assert worse != null && !worse[0] && worse[3];
+    }
+
+    @Test
+    public void testRace() throws Exception {
+        List<Tuner.Configuration> configurations = Tuner.sample(Tuner.Tunable.LNS, 5, new Random(0));
+        assert configurations.size() == 5;
+        assert configurations.get(0).toString().equals("window=6");
+
+        // whole grid when it is smaller than the requested number of configurations
+        assert Tuner.sample(Tuner.Tunable.ILS, 100, new Random(0)).size() == 18;
+
+        // the smallest window always wins : the others are eliminated once enough instances have been seen
+        List<String> instances = new ArrayList<>(Arrays.asList("i1", "i2", "i3", "i4", "i5", "i6"));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Tuner.Configuration> best = Tuner.race(configurations, instances, 3, pool,
+                    (configuration, instance) -> configuration.values[0] + instance.hashCode() % 7, null);
+            double smallest = configurations.stream().mapToDouble(c -> c.values[0]).min().getAsDouble();
+            assert best.size() < configurations.size();
+            assert best.get(0).values[0] == smallest;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
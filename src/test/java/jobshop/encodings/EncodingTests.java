@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Random;
 
 public class EncodingTests {
 
@@ -72,4 +73,142 @@ public class EncodingTests {
         assert result.schedule.makespan() == sched.makespan(); // should have the same makespan
     }
 
+    @Test
+    public void testEvaluateMakespan() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        JobNumbers.Scratch scratch = new JobNumbers.Scratch(instance);
+        Random random = new Random(1);
+
+        for(int i = 0 ; i < 100 ; i++) {
+            JobNumbers enc = JobNumbers.random(instance, random);
+            assert JobNumbers.evaluateMakespan(enc.jobs, scratch) == enc.toSchedule().makespan();
+        }
+    }
+
+    @Test
+    public void testDirectConversions() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(2);
+        ResourceOrder.Scratch scratch = new ResourceOrder.Scratch(instance);
+
+        for(int i = 0 ; i < 50 ; i++) {
+            JobNumbers enc = JobNumbers.random(instance, random);
+            Schedule sched = enc.toSchedule();
+
+            ResourceOrder order = ResourceOrder.fromJobNumbers(enc);
+            assert order.toSchedule().makespan() == sched.makespan();
+            assert order.evaluateMakespan(scratch) == sched.makespan();
+            assert order.toString().equals(new ResourceOrder(sched).toString());
+
+            JobNumbers back = JobNumbers.fromResourceOrder(order);
+            assert back.toSchedule().makespan() == sched.makespan();
+            assert new JobNumbers(sched).toSchedule().makespan() == sched.makespan();
+        }
+    }
+
+    @Test
+    public void testDisjunctiveGraphMoves() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(3);
+
+        JobNumbers enc = JobNumbers.jobByJob(instance);
+        ResourceOrder order = ResourceOrder.fromJobNumbers(enc);
+        DisjunctiveGraph graph = DisjunctiveGraph.fromResourceOrder(order);
+        assert graph.toSchedule().makespan() == enc.toSchedule().makespan();
+
+        for(int i = 0 ; i < 2000 ; i++) {
+            int op = random.nextInt(instance.numOps);
+            String before = graph.toString();
+            boolean applied;
+            if(random.nextBoolean()) {
+                if(graph.machineNext(op) == -1)
+                    continue;
+                applied = graph.reverse(op, graph.machineNext(op));
+            } else {
+                int machine = instance.machine(op);
+                int target = graph.machineFirst(machine);
+                for(int k = random.nextInt(instance.numJobs) ; k > 0 && target != -1 ; k--)
+                    target = graph.machineNext(target);
+                applied = target == -1 || graph.moveAfter(op, target);
+            }
+
+            // the maintained order must be topological, and rejected moves must leave the graph unchanged
+            for(int p = 0 ; p < instance.numOps ; p++) {
+                int o = graph.opAt(p);
+                assert graph.positionOf(o) == p;
+                assert graph.jobNext[o] == -1 || graph.positionOf(graph.jobNext[o]) > p;
+                assert graph.machineNext(o) == -1 || graph.positionOf(graph.machineNext(o)) > p;
+            }
+            Schedule sched = graph.toResourceOrder().toSchedule();
+            assert sched != null;
+            assert sched.makespan() == graph.toSchedule().makespan();
+            if(!applied)
+                assert graph.toString().equals(before);
+        }
+    }
+
+    @Test
+    public void testIncrementalLongestPaths() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(4);
+
+        JobNumbers enc = JobNumbers.jobByJob(instance);
+        LongestPaths paths = new LongestPaths(ResourceOrder.fromJobNumbers(enc));
+
+        for(int i = 0 ; i < 1000 ; i++) {
+            int machine = random.nextInt(instance.numMachines);
+            int t1 = random.nextInt(instance.numJobs - 1);
+            int t2 = random.nextInt(5) == 0 ? random.nextInt(instance.numJobs) : t1 + 1;
+            paths.swap(machine, t1, t2);
+
+            // heads, tails and critical path must match a full decoding of the resource order
+            Schedule sched = paths.order.toSchedule();
+            assert sched != null;
+            assert paths.makespan() == sched.makespan();
+            assert paths.criticalPath().equals(sched.criticalPath());
+            for(int op = 0 ; op < instance.numOps ; op++) {
+                assert paths.head(op) == sched.startTime(op);
+                assert paths.head(op) + instance.duration(op) + paths.tail(op) <= sched.makespan();
+            }
+            LongestPaths fresh = new LongestPaths(paths.order);
+            for(int op = 0 ; op < instance.numOps ; op++)
+                assert paths.tail(op) == fresh.tail(op);
+        }
+    }
+
+    @Test
+    public void testInsertionFeasibility() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(5);
+
+        JobNumbers enc = JobNumbers.jobByJob(instance);
+        LongestPaths paths = new LongestPaths(ResourceOrder.fromJobNumbers(enc));
+
+        int accepted = 0;
+        for(int i = 0 ; i < 1000 ; i++) {
+            int machine = random.nextInt(instance.numMachines);
+            int from = random.nextInt(instance.numJobs);
+            int to = random.nextInt(instance.numJobs);
+
+            // moves accepted by the reachability test never create a cycle
+            if(paths.insertionIsAcyclic(machine, from, to)) {
+                boolean inserted = paths.insert(machine, from, to);
+                assert inserted;
+                accepted++;
+            } else {
+                paths.insert(machine, from, to);
+            }
+
+            Schedule sched = paths.order.toSchedule();
+            assert sched != null;
+            assert paths.makespan() == sched.makespan();
+            for(int op = 0 ; op < instance.numOps ; op++)
+                assert paths.head(op) == sched.startTime(op);
+            LongestPaths fresh = new LongestPaths(paths.order);
+            for(int op = 0 ; op < instance.numOps ; op++)
+                assert paths.tail(op) == fresh.tail(op);
+        }
+        assert accepted > 0;
+    }
+
 }
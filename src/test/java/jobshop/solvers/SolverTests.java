@@ -0,0 +1,227 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.InstanceGenerator;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SolverTests {
+
+    @Test
+    public void testParallelRandomIsDeterministic() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        long deadline = System.currentTimeMillis() + 60000;
+
+        // with an iteration limit, the result only depends on the seed and number of threads
+        Solver solver = new RandomSolver(42, 4, 2000);
+        Result first = solver.solve(instance, deadline);
+        Result second = solver.solve(instance, deadline);
+
+        assert first.schedule.isValid();
+        assert first.schedule.makespan() == second.schedule.makespan();
+    }
+
+    @Test
+    public void testGeneticCrossovers() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la01"));
+
+        for(GeneticSolver.Crossover crossover : GeneticSolver.Crossover.values()) {
+            Solver solver = new GeneticSolver(20, crossover, 0.5, true, 0, 2);
+            Result result = solver.solve(instance, System.currentTimeMillis() + 200);
+            assert result.schedule.isValid();
+            // at least as good as the basic solution of the initial population
+            assert result.schedule.makespan() <= new BasicSolver().solve(instance, 0).schedule.makespan();
+        }
+    }
+
+    @Test
+    public void testSimulatedAnnealing() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        long deadline = System.currentTimeMillis() + 60000;
+        Result start = new BasicSolver().solve(instance, deadline);
+
+        // with an iteration limit, the cooling does not depend on the time and the result only depends on the seed
+        Result first = new SimulatedAnnealingSolver(0, 10000, 50000).solve(instance, deadline);
+        Result second = new SimulatedAnnealingSolver(0, 10000, 50000).solve(instance, deadline);
+        assert first.schedule.isValid();
+        assert first.schedule.makespan() <= start.schedule.makespan();
+        assert first.schedule.makespan() == second.schedule.makespan();
+
+        Result timed = new SimulatedAnnealingSolver(1, 10000).solve(instance, System.currentTimeMillis() + 300);
+        assert timed.schedule.isValid();
+        assert timed.schedule.makespan() <= start.schedule.makespan();
+    }
+
+    @Test
+    public void testBranchAndBoundProvesOptimality() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+
+        // even from the weak upper bound of the basic solver, the search completes on ft06
+        Solver solver = new BranchAndBoundSolver(new BasicSolver());
+        Result result = solver.solve(instance, System.currentTimeMillis() + 60000);
+        assert result.cause == Result.ExitCause.ProvedOptimal;
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() == 55;
+    }
+
+    @Test
+    public void testShiftingBottleneck() throws IOException {
+        for(String name : new String[] {"ft06", "ft10", "la21", "ta01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Result result = new ShiftingBottleneckSolver().solve(instance, System.currentTimeMillis() + 10000);
+            assert result.schedule.isValid();
+            // much better than the dispatch rule previously used as starting point
+            Result greedy = new GreedySolver(GreedySolver.Priority.EST_SPT).solve(instance, System.currentTimeMillis() + 10000);
+            assert result.schedule.makespan() < greedy.schedule.makespan();
+        }
+    }
+
+    @Test
+    public void testGifflerThompson() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        for(GreedySolver.Priority priority : GreedySolver.Priority.values()) {
+            Result result = new GifflerThompsonSolver(priority).solve(instance, System.currentTimeMillis() + 1000);
+            assert result.schedule.isValid();
+        }
+
+        Result single = new GifflerThompsonSolver(GreedySolver.Priority.LRPT).solve(instance, System.currentTimeMillis() + 1000);
+        Result grasp = new GifflerThompsonSolver(GreedySolver.Priority.LRPT, 0.2, 0, 2).solve(instance, System.currentTimeMillis() + 300);
+        assert grasp.schedule.isValid();
+        assert grasp.schedule.makespan() < single.schedule.makespan();
+    }
+
+    @Test
+    public void testNullDurations() throws IOException {
+        // the task reaching the earliest completion starts at that completion : it must still be in the conflict set,
+        // both in the Giffler-Thompson construction and in the expansion of the beam search
+        Instance tiny = Instance.fromLines(Arrays.asList("2 2", "0 0 1 3", "1 2 0 0"));
+        Instance generated = new InstanceGenerator(10, 5, 0, 2, InstanceGenerator.Distribution.UNIFORM).generate(1, 2);
+        // ties of the heads and tails make Schrage's sequence of a bottleneck close a cycle in the shifting bottleneck
+        Instance ties = new InstanceGenerator(8, 3, 0, 1, InstanceGenerator.Distribution.UNIFORM).generate(9, 16);
+        for(Instance instance : new Instance[] {tiny, generated, ties}) {
+            Solver[] solvers = {
+                    new ShiftingBottleneckSolver(),
+                    new GifflerThompsonSolver(GreedySolver.Priority.LRPT),
+                    new GifflerThompsonSolver(GreedySolver.Priority.LRPT, 0.5, 0, 1),
+                    new PathRelinkingSolver(5, 0),
+                    new BeamSearchSolver(3, 1)};
+            for(Solver solver : solvers) {
+                Result result = solver.solve(instance, System.currentTimeMillis() + 100);
+                assert result.schedule.isValid();
+            }
+        }
+    }
+
+    @Test
+    public void testBeamSearch() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        long deadline = System.currentTimeMillis() + 60000;
+
+        Result sequential = new BeamSearchSolver(10, 1).solve(instance, deadline);
+        Result parallel = new BeamSearchSolver(10, 3).solve(instance, deadline);
+        assert sequential.schedule.isValid();
+        // the beam does not depend on the number of threads
+        assert sequential.schedule.makespan() == parallel.schedule.makespan();
+        // wider than a greedy construction
+        assert sequential.schedule.makespan() <= new BeamSearchSolver(1, 1).solve(instance, deadline).schedule.makespan();
+    }
+
+    @Test
+    public void testDescentAndIteratedLocalSearch() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        long deadline = System.currentTimeMillis() + 60000;
+
+        // the descent stops at its local optimum, which improves on its starting point
+        Result start = new ShiftingBottleneckSolver().solve(instance, deadline);
+        Result descent = new DescentSolver().solve(instance, deadline);
+        assert descent.cause == Result.ExitCause.Blocked;
+        assert descent.schedule.isValid();
+        assert descent.schedule.makespan() < start.schedule.makespan();
+
+        for(IteratedLocalSearchSolver.Acceptance acceptance : IteratedLocalSearchSolver.Acceptance.values()) {
+            Solver ils = new IteratedLocalSearchSolver(3, acceptance, 0);
+            Result result = ils.solve(instance, System.currentTimeMillis() + 300);
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() <= descent.schedule.makespan();
+        }
+    }
+
+    @Test
+    public void testLargeNeighborhoodSearch() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        Result descent = new DescentSolver().solve(instance, System.currentTimeMillis() + 60000);
+        Result result = new LargeNeighborhoodSolver(6, 2, 0).solve(instance, System.currentTimeMillis() + 500);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= descent.schedule.makespan();
+    }
+
+    @Test
+    public void testElitePoolAndRelinking() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder a = new ResourceOrder(new BasicSolver().solve(instance, 0).schedule);
+        ResourceOrder b = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, System.currentTimeMillis() + 1000).schedule);
+        ResourceOrder c = a.copy();
+        new DescentSolver.Swap(0, 2, 3).applyOn(c);
+
+        assert ElitePool.distance(a, a) == 0;
+        assert ElitePool.distance(a, c) == 1;
+        assert ElitePool.distance(a, b) == ElitePool.distance(b, a);
+
+        ElitePool pool = new ElitePool(2);
+        // offers are made outside of the asserts, which are not evaluated without -ea
+        boolean offeredA = pool.offer(a, 60);
+        boolean offeredAgain = pool.offer(a, 60);
+        boolean offeredB = pool.offer(b, 55);
+        boolean offeredC = pool.offer(c, 61);
+        assert offeredA;
+        assert !offeredAgain; // already in the pool
+        assert offeredB;
+        assert !offeredC; // full, and worse than the worst
+        assert pool.best() == 1 && pool.makespan(pool.best()) == 55;
+
+        // the walk from a towards b stops strictly before b
+        ResourceOrder point = PathRelinkingSolver.relink(a, b, new Random(0), System.currentTimeMillis() + 1000);
+        assert point != null;
+        assert ElitePool.distance(point, b) > 0 && ElitePool.distance(point, a) > 0;
+        assert point.toSchedule().isValid();
+
+        Result result = new PathRelinkingSolver(5, 0).solve(Instance.fromFile(Paths.get("instances/la21")), System.currentTimeMillis() + 500);
+        assert result.schedule.isValid();
+    }
+
+    @Test
+    public void testTabooRestarts() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        long deadline = System.currentTimeMillis() + 60000;
+        Result first = new ShiftingBottleneckSolver().solve(instance, deadline);
+        // the best solution is returned, whatever the current one when the iterations run out
+        Result plain = new TabooSolver(2000, 10).solve(instance, deadline);
+        Result restarts = new TabooSolver(2000, 10, 100, 0.5, 5, 0).solve(instance, deadline);
+        assert plain.schedule.isValid() && restarts.schedule.isValid();
+        assert plain.schedule.makespan() <= first.schedule.makespan();
+        assert restarts.schedule.makespan() <= first.schedule.makespan();
+        // deterministic for a given seed
+        assert new TabooSolver(2000, 10, 100, 0.5, 5, 0).solve(instance, deadline).schedule.makespan() == restarts.schedule.makespan();
+    }
+
+    @Test
+    public void testPortfolio() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        Result first = new ShiftingBottleneckSolver().solve(instance, System.currentTimeMillis() + 60000);
+        Result result = new PortfolioSolver(2, 0).solve(instance, System.currentTimeMillis() + 500);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= first.schedule.makespan();
+
+        // stops as soon as a member reaches the lower bound
+        result = new PortfolioSolver(1, 0).solve(Instance.fromFile(Paths.get("instances/la01")), System.currentTimeMillis() + 10000);
+        assert result.cause == Result.ExitCause.ProvedOptimal;
+    }
+
+}